@@ -0,0 +1,65 @@
+package ch.qos.logback.core.rolling.benchmark;
+
+import ch.qos.logback.core.rolling.aws.AmazonS3Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyBuilderBenchmark {
+
+    @Param({"logs", "logs/%d{yyyy/MM/dd}", "logs/%d{yyyy/MM/dd}/%d{HH}/%{host}-%{pid}-%{seq}"})
+    public String s3FolderName;
+
+    @Param({"false", "true"})
+    public boolean prefixTimestamp;
+
+    @Param({"0", "256"})
+    public int keyShardCount;
+
+    private LocalS3Server server;
+    private AmazonS3Client s3Client;
+    private Date date;
+
+    @Setup
+    public void setUp() throws IOException {
+        // The client connects in the background at start, keep that away from AWS.
+        this.server = new LocalS3Server();
+        this.server.start();
+
+        this.s3Client = new AmazonS3Client("access", "secret", "bucket", this.s3FolderName, this.prefixTimestamp, false);
+        this.s3Client.setEndpoint(this.server.getEndpoint());
+        this.s3Client.setKeyShardCount(this.keyShardCount);
+        this.s3Client.start();
+        this.date = new Date();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.s3Client.doShutdown();
+        this.server.stop();
+    }
+
+    @Benchmark
+    public String buildKey() {
+        return this.s3Client.getS3ObjectName("logs/myapp.2020-01-01_10-00.0.log.gz", this.date, false);
+    }
+}
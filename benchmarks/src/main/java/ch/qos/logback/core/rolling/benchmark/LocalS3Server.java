@@ -0,0 +1,344 @@
+package ch.qos.logback.core.rolling.benchmark;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Just enough of the S3 REST API, path-style, for the SDK v1 client: bucket ACL, PUT object, multipart uploads and
+// ListObjectsV2. Object bodies are digested and discarded, so memory use does not depend on the uploaded sizes; only
+// keys and sizes are kept for listing. ETags are computed like S3's without SSE-KMS, for multipart uploads from the
+// MD5s of their parts. To exercise throttling, PUTs can be given a service time and answered with 503 SlowDown when
+// more than a set number of them are in progress.
+public class LocalS3Server {
+
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final AtomicLong objects;
+    private final AtomicLong bytes;
+    private final Map<String, Map<Integer, byte[]>> multipartUploads;
+    private final Map<String, AtomicLong> multipartSizes;
+    private final NavigableMap<String, Long> keys;
+    private final AtomicInteger activePuts;
+    private final AtomicLong slowDowns;
+
+    private volatile long putLatencyMillis;
+    private volatile int maxConcurrentPuts;
+
+    public LocalS3Server() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        this.executor = Executors.newCachedThreadPool();
+        this.objects = new AtomicLong();
+        this.bytes = new AtomicLong();
+        this.multipartUploads = new ConcurrentHashMap<>();
+        this.multipartSizes = new ConcurrentHashMap<>();
+        this.keys = new ConcurrentSkipListMap<>();
+        this.activePuts = new AtomicInteger();
+        this.slowDowns = new AtomicLong();
+        this.putLatencyMillis = 0;
+        this.maxConcurrentPuts = 0;
+
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        this.server.start();
+    }
+
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    public String getEndpoint() {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort();
+    }
+
+    public long getObjects() {
+        return objects.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    // How long every PUT of an object or a part takes on top of receiving its body.
+    public void setPutLatencyMillis(long putLatencyMillis) {
+        this.putLatencyMillis = putLatencyMillis;
+    }
+
+    // PUTs beyond this many at the same time get 503 SlowDown. 0 accepts any number.
+    public void setMaxConcurrentPuts(int maxConcurrentPuts) {
+        this.maxConcurrentPuts = maxConcurrentPuts;
+    }
+
+    public long getSlowDowns() {
+        return slowDowns.get();
+    }
+
+    public void awaitObjects(long count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (this.objects.get() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Only " + this.objects.get() + " of " + count + " objects arrived");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String query = exchange.getRequestURI().getRawQuery();
+            query = query == null ? "" : query;
+            String[] path = exchange.getRequestURI().getPath().substring(1).split("/", 2);
+
+            if (path.length == 1 || path[1].isEmpty()) {
+                if ("GET".equals(method) && query.contains("acl")) {
+                    respond(exchange, 200, null, "<AccessControlPolicy><Owner><ID>local</ID><DisplayName>local</DisplayName>"
+                            + "</Owner><AccessControlList></AccessControlList></AccessControlPolicy>");
+                } else if ("GET".equals(method) && query.contains("list-type=2")) {
+                    respond(exchange, 200, null, list(path[0], query));
+                } else {
+                    discard(exchange);
+                    respond(exchange, 200, null, null);
+                }
+            } else if ("POST".equals(method) && query.startsWith("uploads")) {
+                discard(exchange);
+                String uploadId = UUID.randomUUID().toString();
+                this.multipartUploads.put(uploadId, new ConcurrentSkipListMap<>());
+                this.multipartSizes.put(uploadId, new AtomicLong());
+                respond(exchange, 200, null, "<InitiateMultipartUploadResult><Bucket>" + path[0] + "</Bucket><Key>"
+                        + path[1] + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+            } else if ("POST".equals(method) && query.contains("uploadId")) {
+                discard(exchange);
+                Map<Integer, byte[]> parts = this.multipartUploads.remove(parameter(query, "uploadId"));
+                this.keys.put(path[0] + "/" + path[1], this.multipartSizes.remove(parameter(query, "uploadId")).get());
+                MessageDigest partDigests = newMd5();
+                for (byte[] part : parts.values()) {
+                    partDigests.update(part);
+                }
+                this.objects.incrementAndGet();
+                respond(exchange, 200, null, "<CompleteMultipartUploadResult><Bucket>" + path[0] + "</Bucket><Key>"
+                        + path[1] + "</Key><ETag>\"" + toHex(partDigests.digest()) + "-" + parts.size()
+                        + "\"</ETag></CompleteMultipartUploadResult>");
+            } else if ("PUT".equals(method)) {
+                int active = this.activePuts.incrementAndGet();
+                try {
+                    if (this.maxConcurrentPuts > 0 && active > this.maxConcurrentPuts) {
+                        discard(exchange);
+                        this.slowDowns.incrementAndGet();
+                        respond(exchange, 503, null, "<Error><Code>SlowDown</Code>"
+                                + "<Message>Please reduce your request rate.</Message></Error>");
+                    } else {
+                        put(exchange, path, query);
+                    }
+                } finally {
+                    this.activePuts.decrementAndGet();
+                }
+            } else {
+                discard(exchange);
+                if ("DELETE".equals(method) && query.contains("uploadId")) {
+                    this.multipartUploads.remove(parameter(query, "uploadId"));
+                    this.multipartSizes.remove(parameter(query, "uploadId"));
+                }
+                respond(exchange, "DELETE".equals(method) ? 204 : 200, null, null);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            throw e;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void put(HttpExchange exchange, String[] path, String query) throws IOException {
+        byte[] md5 = digest(exchange);
+        if (this.putLatencyMillis > 0) {
+            try {
+                Thread.sleep(this.putLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+        }
+        if (query.contains("partNumber")) {
+            this.multipartUploads.get(parameter(query, "uploadId"))
+                    .put(Integer.parseInt(parameter(query, "partNumber")), md5);
+            this.multipartSizes.get(parameter(query, "uploadId")).addAndGet(length(exchange.getRequestHeaders()));
+        } else {
+            this.keys.put(path[0] + "/" + path[1], length(exchange.getRequestHeaders()));
+            this.objects.incrementAndGet();
+        }
+        respond(exchange, 200, "\"" + toHex(md5) + "\"", null);
+    }
+
+    // One page of the keys under a prefix, the continuation token is the last key returned.
+    private String list(String bucket, String query) {
+        String prefix = bucket + "/" + decode(parameter(query, "prefix"));
+        String token = parameter(query, "continuation-token");
+        String from = token == null ? prefix : bucket + "/" + decode(token);
+
+        StringBuilder xml = new StringBuilder("<ListBucketResult><Name>").append(bucket).append("</Name>");
+        String last = null;
+        int count = 0;
+        boolean truncated = false;
+        for (Map.Entry<String, Long> entry : this.keys.tailMap(from, token == null).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (count == LIST_PAGE_SIZE) {
+                truncated = true;
+                break;
+            }
+            last = entry.getKey().substring(bucket.length() + 1);
+            xml.append("<Contents><Key>").append(last).append("</Key><Size>").append(entry.getValue())
+                    .append("</Size></Contents>");
+            count++;
+        }
+        xml.append("<KeyCount>").append(count).append("</KeyCount><IsTruncated>").append(truncated)
+                .append("</IsTruncated>");
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(last).append("</NextContinuationToken>");
+        }
+        return xml.append("</ListBucketResult>").toString();
+    }
+
+    private static long length(Headers headers) {
+        String decoded = headers.getFirst("x-amz-decoded-content-length");
+        String length = decoded != null ? decoded : headers.getFirst("Content-Length");
+        return length == null ? 0 : Long.parseLong(length);
+    }
+
+    private static String decode(String value) {
+        return value == null ? "" : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private byte[] digest(HttpExchange exchange) throws IOException {
+        MessageDigest md5 = newMd5();
+
+        Headers headers = exchange.getRequestHeaders();
+        String contentSha256 = headers.getFirst("x-amz-content-sha256");
+        InputStream in = exchange.getRequestBody();
+        if (contentSha256 != null && contentSha256.startsWith("STREAMING-")) {
+            readChunked(in, md5);
+            discard(exchange);
+        } else {
+            byte[] buffer = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                md5.update(buffer, 0, len);
+                this.bytes.addAndGet(len);
+            }
+        }
+
+        return md5.digest();
+    }
+
+    private static MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static String parameter(String query, String name) {
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    // aws-chunked bodies: "<hex size>;chunk-signature=<sig>\r\n<data>\r\n", terminated by a zero sized chunk.
+    private void readChunked(InputStream in, MessageDigest md5) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        while (true) {
+            String header = readLine(in);
+            int size = Integer.parseInt(header.substring(0, header.indexOf(';') < 0 ? header.length() : header.indexOf(';')), 16);
+            if (size == 0) {
+                return;
+            }
+            int remaining = size;
+            while (remaining > 0) {
+                int len = in.read(buffer, 0, Math.min(buffer.length, remaining));
+                if (len < 0) {
+                    throw new IOException("Truncated chunk");
+                }
+                md5.update(buffer, 0, len);
+                this.bytes.addAndGet(len);
+                remaining -= len;
+            }
+            readLine(in);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static void discard(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) != -1) {
+            // drain
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String etag, String body) throws IOException {
+        if (etag != null) {
+            exchange.getResponseHeaders().add("ETag", etag);
+        }
+        byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        if (body != null) {
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        }
+        exchange.sendResponseHeaders(status, content.length == 0 ? -1 : content.length);
+        if (content.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content);
+            }
+        }
+    }
+}
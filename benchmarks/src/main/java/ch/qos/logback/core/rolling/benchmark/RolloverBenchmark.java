@@ -0,0 +1,163 @@
+package ch.qos.logback.core.rolling.benchmark;
+
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.rolling.DefaultTimeBasedFileNamingAndTriggeringPolicy;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.S3FixedWindowRollingPolicy;
+import ch.qos.logback.core.rolling.S3TimeBasedRollingPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Time spent in rollover() on the logging thread; the uploads themselves go to a local S3 stand-in in the background.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RolloverBenchmark {
+
+    @State(Scope.Thread)
+    public abstract static class PolicyState {
+
+        @Param({"4096", "1048576"})
+        public int segmentSize;
+
+        LocalS3Server server;
+        ContextBase context;
+        RollingFileAppender<Object> appender;
+        File directory;
+        File activeFile;
+        byte[] segment;
+
+        void setUpAppender() throws IOException {
+            this.server = new LocalS3Server();
+            this.server.start();
+
+            this.directory = Files.createTempDirectory("s3-rollover-benchmark").toFile();
+            this.activeFile = new File(this.directory, "app.log");
+            this.segment = new byte[this.segmentSize];
+
+            this.context = new ContextBase();
+            this.appender = new RollingFileAppender<>();
+            this.appender.setContext(this.context);
+            this.appender.setFile(this.activeFile.getPath());
+        }
+
+        void writeSegment() throws IOException {
+            try (OutputStream out = Files.newOutputStream(this.activeFile.toPath())) {
+                out.write(this.segment);
+            }
+        }
+
+        void tearDownAppender() throws IOException {
+            this.server.stop();
+            try (Stream<Path> paths = Files.walk(this.directory.toPath())) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    public static class TimeBased extends PolicyState {
+
+        S3TimeBasedRollingPolicy<Object> policy;
+        DefaultTimeBasedFileNamingAndTriggeringPolicy<Object> triggeringPolicy;
+        long currentTime;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            setUpAppender();
+
+            this.currentTime = System.currentTimeMillis();
+            this.triggeringPolicy = new DefaultTimeBasedFileNamingAndTriggeringPolicy<>();
+            this.triggeringPolicy.setCurrentTime(this.currentTime);
+
+            this.policy = new S3TimeBasedRollingPolicy<>();
+            this.policy.setContext(this.context);
+            this.policy.setParent(this.appender);
+            this.policy.setFileNamePattern(new File(this.directory, "app.%d{yyyy-MM-dd_HH-mm}.log").getPath());
+            this.policy.setTimeBasedFileNamingAndTriggeringPolicy(this.triggeringPolicy);
+            this.policy.setAwsAccessKey("access");
+            this.policy.setAwsSecretKey("secret");
+            this.policy.setS3BucketName("bucket");
+            this.policy.setS3Endpoint(this.server.getEndpoint());
+            this.policy.start();
+        }
+
+        @Setup(Level.Invocation)
+        public void nextPeriod() throws IOException {
+            writeSegment();
+            this.currentTime += TimeUnit.MINUTES.toMillis(1);
+            this.triggeringPolicy.setCurrentTime(this.currentTime);
+            this.triggeringPolicy.isTriggeringEvent(this.activeFile, null);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            this.policy.doShutdown();
+            tearDownAppender();
+        }
+    }
+
+    public static class FixedWindow extends PolicyState {
+
+        S3FixedWindowRollingPolicy policy;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            setUpAppender();
+
+            this.policy = new S3FixedWindowRollingPolicy();
+            this.policy.setContext(this.context);
+            this.policy.setParent(this.appender);
+            this.policy.setFileNamePattern(new File(this.directory, "app.%i.log").getPath());
+            this.policy.setMinIndex(1);
+            this.policy.setMaxIndex(3);
+            this.policy.setAwsAccessKey("access");
+            this.policy.setAwsSecretKey("secret");
+            this.policy.setS3BucketName("bucket");
+            this.policy.setS3Endpoint(this.server.getEndpoint());
+            this.policy.start();
+        }
+
+        @Setup(Level.Invocation)
+        public void nextSegment() throws IOException {
+            writeSegment();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            this.policy.doShutdown();
+            tearDownAppender();
+        }
+    }
+
+    @Benchmark
+    public void timeBasedRollover(TimeBased state) {
+        state.policy.rollover();
+    }
+
+    @Benchmark
+    public void fixedWindowRollover(FixedWindow state) {
+        state.policy.rollover();
+    }
+}
@@ -0,0 +1,113 @@
+package ch.qos.logback.core.rolling.benchmark;
+
+import ch.qos.logback.core.rolling.aws.AmazonS3Client;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Uploads to a local S3 stand-in that takes PUT_LATENCY_MILLIS per PUT and answers 503 SlowDown beyond
+// MAX_CONCURRENT_PUTS at once. Compares fixed worker counts with the adaptive limit, which starts at uploadWorkers;
+// the slowDowns counter shows how many PUTs were throttled.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ThrottledUploadBenchmark {
+
+    private static final int FILES = 200;
+    private static final int FILE_SIZE = 256 * 1024;
+    private static final long PUT_LATENCY_MILLIS = 20;
+    private static final int MAX_CONCURRENT_PUTS = 8;
+
+    @Param({"2", "8", "32"})
+    public int uploadWorkers;
+
+    @Param({"false", "true"})
+    public boolean adaptiveUploadConcurrency;
+
+    private LocalS3Server server;
+    private AmazonS3Client s3Client;
+    private File directory;
+    private File[] files;
+    private Date date;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Throttling {
+        public long slowDowns;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.slowDowns = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        this.server = new LocalS3Server();
+        this.server.setPutLatencyMillis(PUT_LATENCY_MILLIS);
+        this.server.setMaxConcurrentPuts(MAX_CONCURRENT_PUTS);
+        this.server.start();
+
+        this.s3Client = new AmazonS3Client("access", "secret", "bucket", "logs/%d{yyyy/MM/dd}", false, false);
+        this.s3Client.setEndpoint(this.server.getEndpoint());
+        this.s3Client.setUploadWorkers(this.uploadWorkers);
+        this.s3Client.setAdaptiveUploadConcurrency(this.adaptiveUploadConcurrency);
+        this.s3Client.setUploadQueueSize(FILES);
+        this.s3Client.start();
+
+        this.directory = Files.createTempDirectory("s3-throttled-benchmark").toFile();
+        this.files = new File[FILES];
+        byte[] data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        for (int i = 0; i < FILES; i++) {
+            this.files[i] = new File(this.directory, "segment-" + i + ".log");
+            Files.write(this.files[i].toPath(), data);
+        }
+        this.date = new Date();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.s3Client.doShutdown();
+        this.server.stop();
+        for (File file : this.files) {
+            file.delete();
+        }
+        this.directory.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public long upload(Throttling throttling) throws InterruptedException {
+        long target = this.server.getObjects() + FILES;
+        long slowDowns = this.server.getSlowDowns();
+        for (File file : this.files) {
+            this.s3Client.uploadFileToS3Async(file.getPath(), this.date);
+        }
+        this.server.awaitObjects(target, 5, TimeUnit.MINUTES);
+        throttling.slowDowns += this.server.getSlowDowns() - slowDowns;
+        return this.server.getBytes();
+    }
+}
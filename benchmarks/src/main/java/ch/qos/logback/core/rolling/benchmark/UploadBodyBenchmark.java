@@ -0,0 +1,108 @@
+package ch.qos.logback.core.rolling.benchmark;
+
+import ch.qos.logback.core.rolling.aws.AmazonS3Client;
+import ch.qos.logback.core.rolling.aws.FileBodies;
+import ch.qos.logback.core.rolling.io.DirectBufferPool;
+import ch.qos.logback.core.rolling.io.UploadBodyMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Compares the uploadBodyMode read paths. read() drains a body into a fixed array the way the HTTP client
+// copies it to the socket, upload() sends the file to the local S3 stand-in. Run with -prof gc to see the
+// allocation rate of each mode next to its throughput.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UploadBodyBenchmark {
+
+    private static final int SINK_SIZE = 8 * 1024;
+
+    @Param({"FILE", "DIRECT", "MAPPED"})
+    public UploadBodyMode uploadBodyMode;
+
+    @Param({"4194304", "134217728"})
+    public int fileSize;
+
+    @Param({"0", "16777216"})
+    public long multipartThreshold;
+
+    private LocalS3Server server;
+    private AmazonS3Client s3Client;
+    private FileBodies bodies;
+    private File file;
+    private byte[] sink;
+    private Date date;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.server = new LocalS3Server();
+        this.server.start();
+
+        this.s3Client = new AmazonS3Client("access", "secret", "bucket", "logs", false, false);
+        this.s3Client.setEndpoint(this.server.getEndpoint());
+        this.s3Client.setMultipartThreshold(this.multipartThreshold);
+        this.s3Client.setUploadBodyMode(this.uploadBodyMode);
+        this.s3Client.start();
+
+        this.bodies = new FileBodies(this.uploadBodyMode, new DirectBufferPool());
+        this.file = File.createTempFile("s3-upload-body", ".log");
+        byte[] block = new byte[64 * 1024];
+        new Random(42).nextBytes(block);
+        try (OutputStream out = Files.newOutputStream(this.file.toPath())) {
+            for (int written = 0; written < this.fileSize; written += block.length) {
+                out.write(block, 0, Math.min(block.length, this.fileSize - written));
+            }
+        }
+        this.sink = new byte[SINK_SIZE];
+        this.date = new Date();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.s3Client.doShutdown();
+        this.server.stop();
+        this.file.delete();
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        long total = 0;
+        try (InputStream body = this.bodies.open(this.file, 0, this.fileSize)) {
+            int read;
+            while ((read = body.read(this.sink, 0, this.sink.length)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long upload() throws InterruptedException {
+        long target = this.server.getObjects() + 1;
+        this.s3Client.uploadFileToS3Async(this.file.getPath(), this.date);
+        this.server.awaitObjects(target, 5, TimeUnit.MINUTES);
+        return this.server.getBytes();
+    }
+}
@@ -0,0 +1,98 @@
+package ch.qos.logback.core.rolling.benchmark;
+
+import ch.qos.logback.core.rolling.aws.AmazonS3Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end: queue FILES uploads and wait until the local S3 stand-in has received all of them.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UploadThroughputBenchmark {
+
+    private static final int FILES = 16;
+
+    @Param({"65536", "4194304", "33554432"})
+    public int fileSize;
+
+    @Param({"1", "4"})
+    public int uploadWorkers;
+
+    @Param({"0", "16777216"})
+    public long multipartThreshold;
+
+    private LocalS3Server server;
+    private AmazonS3Client s3Client;
+    private File directory;
+    private File[] files;
+    private Date date;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.server = new LocalS3Server();
+        this.server.start();
+
+        this.s3Client = new AmazonS3Client("access", "secret", "bucket", "logs/%d{yyyy/MM/dd}", false, false);
+        this.s3Client.setEndpoint(this.server.getEndpoint());
+        this.s3Client.setUploadWorkers(this.uploadWorkers);
+        this.s3Client.setMultipartThreshold(this.multipartThreshold);
+        this.s3Client.start();
+
+        this.directory = Files.createTempDirectory("s3-upload-benchmark").toFile();
+        this.files = new File[FILES];
+        byte[] block = new byte[64 * 1024];
+        new Random(42).nextBytes(block);
+        for (int i = 0; i < FILES; i++) {
+            this.files[i] = new File(this.directory, "segment-" + i + ".log");
+            try (OutputStream out = Files.newOutputStream(this.files[i].toPath())) {
+                for (int written = 0; written < this.fileSize; written += block.length) {
+                    out.write(block, 0, Math.min(block.length, this.fileSize - written));
+                }
+            }
+        }
+        this.date = new Date();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.s3Client.doShutdown();
+        this.server.stop();
+        for (File file : this.files) {
+            file.delete();
+        }
+        this.directory.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public long upload() throws InterruptedException {
+        long target = this.server.getObjects() + FILES;
+        for (File file : this.files) {
+            this.s3Client.uploadFileToS3Async(file.getPath(), this.date);
+        }
+        this.server.awaitObjects(target, 5, TimeUnit.MINUTES);
+        return this.server.getBytes();
+    }
+}
@@ -1,132 +1,704 @@
 package ch.qos.logback.core.rolling;
 
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.rolling.aws.ActiveFileStreamer;
 import ch.qos.logback.core.rolling.aws.AmazonS3Client;
+import ch.qos.logback.core.rolling.aws.UploadBackend;
+import ch.qos.logback.core.rolling.batch.BatchFormat;
+import ch.qos.logback.core.rolling.compress.BlockIndex;
+import ch.qos.logback.core.rolling.compress.CompressionCodec;
+import ch.qos.logback.core.rolling.compress.ParallelCompressor;
+import ch.qos.logback.core.rolling.executor.UploadOverflowPolicy;
+import ch.qos.logback.core.rolling.helper.CompressionMode;
+import ch.qos.logback.core.rolling.io.UploadBodyMode;
+import ch.qos.logback.core.rolling.metrics.UploadMetrics;
+import ch.qos.logback.core.rolling.metrics.UploadMetricsListener;
 import ch.qos.logback.core.rolling.shutdown.RollingPolicyShutdownListener;
 import ch.qos.logback.core.rolling.shutdown.ShutdownHookType;
 import ch.qos.logback.core.rolling.shutdown.ShutdownHookUtil;
-
+import ch.qos.logback.core.rolling.spool.SpoolOverflowPolicy;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class S3FixedWindowRollingPolicy extends FixedWindowRollingPolicy implements RollingPolicyShutdownListener {
 
-    private String awsAccessKey;
-    private String awsSecretKey;
-    private String s3BucketName;
-    private String s3FolderName;
-    private ShutdownHookType shutdownHookType;
-    private boolean rolloverOnExit;
-    private boolean prefixTimestamp;
-    private boolean prefixIdentifier;
+    private final S3UploadSettings settings = new S3UploadSettings();
 
     private AmazonS3Client s3Client;
-
-    public S3FixedWindowRollingPolicy() {
-        super();
-
-        setAwsAccessKey(null);
-        setAwsSecretKey(null);
-        setS3FolderName(null);
-        setS3BucketName(null);
-
-        setRolloverOnExit(false);
-        setPrefixTimestamp(false);
-        setPrefixIdentifier(false);
-        setShutdownHookType(ShutdownHookType.NONE);
-    }
+    private ActiveFileStreamer streamer;
+    private ScheduledExecutorService streamingScheduler;
+    private ParallelCompressor parallelCompressor;
+    private FileAppender<?> appender;
+    private final Map<CompletableFuture<Void>, String> pipelines = new ConcurrentHashMap<>();
+    private volatile CompletableFuture<Void> handOverFuture;
+    private volatile Date segmentStart;
 
     @Override
     public void start() {
         super.start();
 
-        this.s3Client = new AmazonS3Client(getAwsAccessKey(), getAwsSecretKey(), getS3BucketName(),
-                getS3FolderName(), isPrefixTimestamp(), isPrefixIdentifier());
+        if (isParallelCompression() || isSeekableIndex()) {
+            this.parallelCompressor = this.settings.newParallelCompressor(this, getFileNamePattern());
+            if (this.parallelCompressor != null) {
+                // Logback only renames the active file into the window, it is compressed after rollover().
+                compressionMode = CompressionMode.NONE;
+            }
+        }
+
+        this.s3Client = this.settings.newClient(this, getActiveFileName());
+        this.settings.startClient(this.s3Client, this, getActiveFileName());
 
-        if (isPrefixIdentifier()) {
-            addInfo("Using identifier prefix \"" + this.s3Client.getIdentifier() + "\"");
+        if (isStreamActiveFile()) {
+            this.segmentStart = new Date();
+            this.streamer = new ActiveFileStreamer(this.s3Client, this::getActiveFileName, this::getStreamedFileName,
+                    () -> this.segmentStart);
+            this.streamingScheduler = this.settings.startStreaming(this, this.streamer);
         }
 
-        ShutdownHookUtil.registerShutdownHook(this, getShutdownHookType());
+        ShutdownHookUtil.registerShutdownHook(this, getShutdownHookType(), getShutdownTimeout().getMilliseconds());
     }
 
     @Override
     public void rollover() throws RolloverFailure {
-        super.rollover();
+        // The window shifts below, the file rolled last time must be compressed and handed over by then. This
+        // only waits when rollovers come faster than a file compresses.
+        awaitHandOver();
+
+        final String fileName = fileNamePattern.convertInt(getMinIndex());
+        // A streamed file is dated by the start of its segment, which its streamed object is keyed by too.
+        final Date date = this.streamer == null ? new Date() : this.segmentStart;
+        // The window reuses fileName, so the upload is made from a snapshot of the rolled file.
+        final AtomicReference<File> snapshot = new AtomicReference<>();
+        final Runnable upload = () -> upload(snapshot.getAndSet(null), date);
+        final CompletableFuture<Void> uploadable = new CompletableFuture<>();
+        // A streamed file whose tail cannot be sent falls back to uploading the rolled file.
+        final AtomicBoolean fellBack = new AtomicBoolean();
+        final Runnable streamFinisher = this.streamer == null ? null : this.streamer.detach(() -> {
+            fellBack.set(true);
+            track(fileName, uploadable.thenCompose(ignored -> this.s3Client.handOff(fileName, upload)));
+        });
+
+        try {
+            super.rollover();
+            this.segmentStart = new Date();
+        } finally {
+            if (this.streamer != null) {
+                this.streamer.resume();
+            }
+        }
 
-        this.s3Client.uploadFileToS3Async(fileNamePattern.convertInt(getMinIndex()), new Date());
+        // Each rollover is chained on its own compression, the logging thread only renames the file.
+        CompletableFuture<Void> handedOver = compress(fileName).thenRun(() -> snapshot.set(snapshot(fileName)));
+        this.handOverFuture = handedOver;
+        handedOver.whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                uploadable.completeExceptionally(ex);
+            } else {
+                uploadable.complete(null);
+            }
+        });
+        if (streamFinisher != null) {
+            // The streamed object only needs its tail, which the rolled file's channel still reads after the
+            // window moved it, so it does not wait for compression. The snapshot is only kept for the fallback.
+            track(fileName, this.s3Client.handOff(fileName, () -> {
+                streamFinisher.run();
+                if (!fellBack.get()) {
+                    uploadable.thenRun(() -> discardSnapshot(snapshot.getAndSet(null)));
+                }
+            }));
+        } else if (this.parallelCompressor == null) {
+            // Nothing to wait for, the snapshot was taken on this thread.
+            upload.run();
+        } else {
+            track(fileName, uploadable.thenCompose(ignored -> this.s3Client.handOff(fileName, upload)));
+        }
+    }
+
+    private File snapshot(String fileName) {
+        File file = new File(fileName);
+        if (!file.exists()) {
+            return null;
+        }
+        File sidecar = new File(fileName + BlockIndex.SUFFIX);
+        try {
+            return this.s3Client.snapshot(file, this.parallelCompressor != null && this.parallelCompressor.isIndexed()
+                    && sidecar.exists() ? sidecar : null);
+        } catch (IOException e) {
+            addError("Could not hand " + fileName + " over for upload", e);
+            return null;
+        }
+    }
+
+    private void upload(File snapshot, Date date) {
+        if (snapshot == null) {
+            return;
+        }
+        File sidecar = new File(snapshot.getPath() + BlockIndex.SUFFIX);
+        this.s3Client.uploadFileToS3Async(snapshot.getPath(), date, false, CompressionMode.NONE,
+                sidecar.exists() ? sidecar : null);
+    }
+
+    private void discardSnapshot(File snapshot) {
+        if (snapshot != null) {
+            this.s3Client.discardSnapshot(snapshot);
+        }
+    }
+
+    // The file is renamed out of the window's name right away, its blocks are compressed back into it on all
+    // compression threads.
+    private CompletableFuture<Void> compress(String fileName) {
+        if (this.parallelCompressor == null || !new File(fileName).exists()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String rawFileName = this.parallelCompressor.getCodec().stripSuffix(fileName);
+        try {
+            Files.move(Paths.get(fileName), Paths.get(rawFileName), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            addError("Could not rename " + fileName + " for compression", e);
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            try {
+                long bytesIn = new File(rawFileName).length();
+                long start = System.nanoTime();
+                this.parallelCompressor.compress(rawFileName, fileName);
+                this.s3Client.getMetrics().compressionCompleted(fileName, bytesIn, new File(fileName).length(),
+                        System.nanoTime() - start);
+            } catch (IOException e) {
+                addError("Could not compress " + rawFileName, e);
+            }
+        }, this.parallelCompressor.getPool());
+    }
+
+    private void awaitHandOver() {
+        CompletableFuture<Void> handOver = this.handOverFuture;
+        if (handOver == null) {
+            return;
+        }
+        try {
+            handOver.join();
+        } catch (CompletionException e) {
+            addError("Could not hand the previous rolled file over for upload", e);
+        }
+    }
+
+    private void track(String fileName, CompletableFuture<Void> pipeline) {
+        this.pipelines.put(pipeline, fileName);
+        pipeline.whenComplete((ignored, ex) -> {
+            this.pipelines.remove(pipeline);
+            if (ex != null) {
+                addError("Could not queue " + fileName + " for upload", ex);
+            }
+        });
+    }
+
+    // A stream that falls back tracks the rolled file's upload from its own pipeline, so this waits until no
+    // pipeline is left running rather than for the ones running when it was called.
+    private void awaitPipelines(long deadlineNanos, List<String> unflushed) {
+        try {
+            while (this.pipelines.keySet().stream().anyMatch(pipeline -> !pipeline.isDone())) {
+                try {
+                    CompletableFuture.allOf(this.pipelines.keySet().toArray(new CompletableFuture<?>[0]))
+                            .get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    // Already reported by the failed pipeline.
+                }
+            }
+        } catch (TimeoutException e) {
+            for (String fileName : this.pipelines.values()) {
+                unflushed.add(fileName + " (compressing)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The streamed object is not compressed, so it goes without the compression suffix.
+    private String getStreamedFileName() {
+        String fileName = fileNamePattern.convertInt(getMinIndex());
+        CompressionCodec codec = CompressionCodec.fromFileName(fileName);
+        if (codec != null) {
+            return codec.stripSuffix(fileName);
+        }
+        return fileName.endsWith(".zip") ? fileName.substring(0, fileName.length() - 4) : fileName;
+    }
+
+    private void uploadActiveFile() {
+        final String activeFileName = getActiveFileName();
+        final Date date = this.streamer == null ? new Date() : this.segmentStart;
+        final Runnable upload = () -> this.s3Client.uploadFileToS3Async(activeFileName, date, true);
+        final Runnable streamFinisher = this.streamer == null ? null : this.streamer.detach(upload);
+        if (streamFinisher != null) {
+            track(activeFileName, this.s3Client.handOff(activeFileName, streamFinisher));
+        } else {
+            upload.run();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (this.streamingScheduler != null) {
+            this.streamingScheduler.shutdownNow();
+        }
+        if (this.s3Client != null) {
+            this.s3Client.getMetrics().unregisterMBean();
+        }
+        super.stop();
     }
 
     @Override
     public void doShutdown() {
+        doShutdown(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getShutdownTimeout().getMilliseconds()));
+    }
+
+    @Override
+    public List<String> doShutdown(long deadlineNanos) {
+        if (this.streamingScheduler != null) {
+            this.streamingScheduler.shutdownNow();
+        }
+
+        this.s3Client.beginShutdown();
         if (isRolloverOnExit()) {
-            rollover();
+            rolloverOnExit();
         } else {
-            this.s3Client.uploadFileToS3Async(getActiveFileName(), new Date(), true);
+            uploadActiveFile();
         }
 
-        this.s3Client.doShutdown();
+        List<String> unflushed = new ArrayList<>();
+        awaitPipelines(deadlineNanos, unflushed);
+
+        unflushed.addAll(this.s3Client.doShutdown(deadlineNanos));
+        this.s3Client.getMetrics().unregisterMBean();
+
+        if (this.parallelCompressor != null) {
+            this.parallelCompressor.getPool().shutdown();
+        }
+
+        if (!unflushed.isEmpty()) {
+            addWarn(unflushed.size() + " uploads were not flushed within " + getShutdownTimeout() + ": " + unflushed);
+        }
+        return unflushed;
+    }
+
+    @Override
+    public void setParent(FileAppender<?> appender) {
+        super.setParent(appender);
+        this.appender = appender;
+    }
+
+    // Goes through the appender, which holds its lock around this rollover like around any other, so it cannot
+    // run at the same time as a rollover triggered by logging. The appender also closes and reopens the file.
+    private void rolloverOnExit() {
+        if (this.appender instanceof RollingFileAppender) {
+            ((RollingFileAppender<?>) this.appender).rollover();
+        } else {
+            rollover();
+        }
     }
 
     public String getAwsAccessKey() {
-        return awsAccessKey;
+        return this.settings.getAwsAccessKey();
     }
 
     public void setAwsAccessKey(String awsAccessKey) {
-        this.awsAccessKey = awsAccessKey;
+        this.settings.setAwsAccessKey(awsAccessKey);
     }
 
     public String getAwsSecretKey() {
-        return awsSecretKey;
+        return this.settings.getAwsSecretKey();
     }
 
     public void setAwsSecretKey(String awsSecretKey) {
-        this.awsSecretKey = awsSecretKey;
+        this.settings.setAwsSecretKey(awsSecretKey);
     }
 
     public String getS3BucketName() {
-        return s3BucketName;
+        return this.settings.getS3BucketName();
     }
 
     public void setS3BucketName(String s3BucketName) {
-        this.s3BucketName = s3BucketName;
+        this.settings.setS3BucketName(s3BucketName);
     }
 
     public String getS3FolderName() {
-        return s3FolderName;
+        return this.settings.getS3FolderName();
     }
 
     public void setS3FolderName(String s3FolderName) {
-        this.s3FolderName = s3FolderName;
+        this.settings.setS3FolderName(s3FolderName);
+    }
+
+    public String getS3Endpoint() {
+        return this.settings.getS3Endpoint();
+    }
+
+    public void setS3Endpoint(String s3Endpoint) {
+        this.settings.setS3Endpoint(s3Endpoint);
+    }
+
+    public String getS3Region() {
+        return this.settings.getS3Region();
+    }
+
+    public void setS3Region(String s3Region) {
+        this.settings.setS3Region(s3Region);
     }
 
     public boolean isRolloverOnExit() {
-        return rolloverOnExit;
+        return this.settings.isRolloverOnExit();
     }
 
     public void setRolloverOnExit(boolean rolloverOnExit) {
-        this.rolloverOnExit = rolloverOnExit;
+        this.settings.setRolloverOnExit(rolloverOnExit);
     }
 
     public ShutdownHookType getShutdownHookType() {
-        return shutdownHookType;
+        return this.settings.getShutdownHookType();
     }
 
     public void setShutdownHookType(ShutdownHookType shutdownHookType) {
-        this.shutdownHookType = shutdownHookType;
+        this.settings.setShutdownHookType(shutdownHookType);
+    }
+
+    public Duration getShutdownTimeout() {
+        return this.settings.getShutdownTimeout();
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.settings.setShutdownTimeout(shutdownTimeout);
     }
 
     public boolean isPrefixTimestamp() {
-        return prefixTimestamp;
+        return this.settings.isPrefixTimestamp();
     }
 
     public void setPrefixTimestamp(boolean prefixTimestamp) {
-        this.prefixTimestamp = prefixTimestamp;
+        this.settings.setPrefixTimestamp(prefixTimestamp);
     }
 
     public boolean isPrefixIdentifier() {
-        return prefixIdentifier;
+        return this.settings.isPrefixIdentifier();
     }
 
     public void setPrefixIdentifier(boolean prefixIdentifier) {
-        this.prefixIdentifier = prefixIdentifier;
+        this.settings.setPrefixIdentifier(prefixIdentifier);
+    }
+
+    public FileSize getMultipartThreshold() {
+        return this.settings.getMultipartThreshold();
+    }
+
+    public void setMultipartThreshold(FileSize multipartThreshold) {
+        this.settings.setMultipartThreshold(multipartThreshold);
+    }
+
+    public FileSize getMultipartPartSize() {
+        return this.settings.getMultipartPartSize();
+    }
+
+    public void setMultipartPartSize(FileSize multipartPartSize) {
+        this.settings.setMultipartPartSize(multipartPartSize);
+    }
+
+    public int getMultipartConcurrency() {
+        return this.settings.getMultipartConcurrency();
+    }
+
+    public void setMultipartConcurrency(int multipartConcurrency) {
+        this.settings.setMultipartConcurrency(multipartConcurrency);
+    }
+
+    public int getUploadWorkers() {
+        return this.settings.getUploadWorkers();
+    }
+
+    public void setUploadWorkers(int uploadWorkers) {
+        this.settings.setUploadWorkers(uploadWorkers);
+    }
+
+    public boolean isAdaptiveUploadConcurrency() {
+        return this.settings.isAdaptiveUploadConcurrency();
+    }
+
+    public void setAdaptiveUploadConcurrency(boolean adaptiveUploadConcurrency) {
+        this.settings.setAdaptiveUploadConcurrency(adaptiveUploadConcurrency);
+    }
+
+    public int getMaxUploadWorkers() {
+        return this.settings.getMaxUploadWorkers();
+    }
+
+    public void setMaxUploadWorkers(int maxUploadWorkers) {
+        this.settings.setMaxUploadWorkers(maxUploadWorkers);
+    }
+
+    public boolean isVirtualThreads() {
+        return this.settings.isVirtualThreads();
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.settings.setVirtualThreads(virtualThreads);
+    }
+
+    public Duration getUploadPriorityMaxDelay() {
+        return this.settings.getUploadPriorityMaxDelay();
+    }
+
+    public void setUploadPriorityMaxDelay(Duration uploadPriorityMaxDelay) {
+        this.settings.setUploadPriorityMaxDelay(uploadPriorityMaxDelay);
+    }
+
+    public int getUploadQueueSize() {
+        return this.settings.getUploadQueueSize();
+    }
+
+    public void setUploadQueueSize(int uploadQueueSize) {
+        this.settings.setUploadQueueSize(uploadQueueSize);
+    }
+
+    public UploadOverflowPolicy getUploadOverflowPolicy() {
+        return this.settings.getUploadOverflowPolicy();
+    }
+
+    public void setUploadOverflowPolicy(UploadOverflowPolicy uploadOverflowPolicy) {
+        this.settings.setUploadOverflowPolicy(uploadOverflowPolicy);
+    }
+
+    public String getUploadSpillFile() {
+        return this.settings.getUploadSpillFile();
+    }
+
+    public void setUploadSpillFile(String uploadSpillFile) {
+        this.settings.setUploadSpillFile(uploadSpillFile);
+    }
+
+    public String getUploadJournalFile() {
+        return this.settings.getUploadJournalFile();
+    }
+
+    public void setUploadJournalFile(String uploadJournalFile) {
+        this.settings.setUploadJournalFile(uploadJournalFile);
+    }
+
+    public int getUploadMaxRetries() {
+        return this.settings.getUploadMaxRetries();
+    }
+
+    public void setUploadMaxRetries(int uploadMaxRetries) {
+        this.settings.setUploadMaxRetries(uploadMaxRetries);
+    }
+
+    public BatchFormat getBatchFormat() {
+        return this.settings.getBatchFormat();
+    }
+
+    public void setBatchFormat(BatchFormat batchFormat) {
+        this.settings.setBatchFormat(batchFormat);
+    }
+
+    public FileSize getBatchMaxSize() {
+        return this.settings.getBatchMaxSize();
+    }
+
+    public void setBatchMaxSize(FileSize batchMaxSize) {
+        this.settings.setBatchMaxSize(batchMaxSize);
+    }
+
+    public Duration getBatchMaxAge() {
+        return this.settings.getBatchMaxAge();
+    }
+
+    public void setBatchMaxAge(Duration batchMaxAge) {
+        this.settings.setBatchMaxAge(batchMaxAge);
+    }
+
+    public String getBatchDirectory() {
+        return this.settings.getBatchDirectory();
+    }
+
+    public void setBatchDirectory(String batchDirectory) {
+        this.settings.setBatchDirectory(batchDirectory);
+    }
+
+    public UploadBackend getUploadBackend() {
+        return this.settings.getUploadBackend();
+    }
+
+    public void setUploadBackend(UploadBackend uploadBackend) {
+        this.settings.setUploadBackend(uploadBackend);
+    }
+
+    public FileSize getMaxUploadBytesPerSecond() {
+        return this.settings.getMaxUploadBytesPerSecond();
+    }
+
+    public void setMaxUploadBytesPerSecond(FileSize maxUploadBytesPerSecond) {
+        this.settings.setMaxUploadBytesPerSecond(maxUploadBytesPerSecond);
+    }
+
+    public FileSize getMaxProcessUploadBytesPerSecond() {
+        return this.settings.getMaxProcessUploadBytesPerSecond();
+    }
+
+    public void setMaxProcessUploadBytesPerSecond(FileSize maxProcessUploadBytesPerSecond) {
+        this.settings.setMaxProcessUploadBytesPerSecond(maxProcessUploadBytesPerSecond);
+    }
+
+    public FileSize getUploadBurstSize() {
+        return this.settings.getUploadBurstSize();
+    }
+
+    public void setUploadBurstSize(FileSize uploadBurstSize) {
+        this.settings.setUploadBurstSize(uploadBurstSize);
+    }
+
+    public UploadBodyMode getUploadBodyMode() {
+        return this.settings.getUploadBodyMode();
+    }
+
+    public void setUploadBodyMode(UploadBodyMode uploadBodyMode) {
+        this.settings.setUploadBodyMode(uploadBodyMode);
+    }
+
+    public boolean isDeleteAfterUpload() {
+        return this.settings.isDeleteAfterUpload();
+    }
+
+    public void setDeleteAfterUpload(boolean deleteAfterUpload) {
+        this.settings.setDeleteAfterUpload(deleteAfterUpload);
+    }
+
+    public FileSize getSpoolMaxSize() {
+        return this.settings.getSpoolMaxSize();
+    }
+
+    public void setSpoolMaxSize(FileSize spoolMaxSize) {
+        this.settings.setSpoolMaxSize(spoolMaxSize);
+    }
+
+    public SpoolOverflowPolicy getSpoolOverflowPolicy() {
+        return this.settings.getSpoolOverflowPolicy();
+    }
+
+    public void setSpoolOverflowPolicy(SpoolOverflowPolicy spoolOverflowPolicy) {
+        this.settings.setSpoolOverflowPolicy(spoolOverflowPolicy);
+    }
+
+    public int getKeyShardCount() {
+        return this.settings.getKeyShardCount();
+    }
+
+    public void setKeyShardCount(int keyShardCount) {
+        this.settings.setKeyShardCount(keyShardCount);
+    }
+
+    public String getKeyShardPeriod() {
+        return this.settings.getKeyShardPeriod();
+    }
+
+    public void setKeyShardPeriod(String keyShardPeriod) {
+        this.settings.setKeyShardPeriod(keyShardPeriod);
+    }
+
+    public boolean isJmxMetrics() {
+        return this.settings.isJmxMetrics();
+    }
+
+    public void setJmxMetrics(boolean jmxMetrics) {
+        this.settings.setJmxMetrics(jmxMetrics);
+    }
+
+    public boolean isStreamActiveFile() {
+        return this.settings.isStreamActiveFile();
+    }
+
+    public void setStreamActiveFile(boolean streamActiveFile) {
+        this.settings.setStreamActiveFile(streamActiveFile);
+    }
+
+    public Duration getStreamingInterval() {
+        return this.settings.getStreamingInterval();
+    }
+
+    public void setStreamingInterval(Duration streamingInterval) {
+        this.settings.setStreamingInterval(streamingInterval);
+    }
+
+    public boolean isParallelCompression() {
+        return this.settings.isParallelCompression();
+    }
+
+    public void setParallelCompression(boolean parallelCompression) {
+        this.settings.setParallelCompression(parallelCompression);
+    }
+
+    public boolean isSeekableIndex() {
+        return this.settings.isSeekableIndex();
+    }
+
+    public void setSeekableIndex(boolean seekableIndex) {
+        this.settings.setSeekableIndex(seekableIndex);
+    }
+
+    public String getIndexTimestampPattern() {
+        return this.settings.getIndexTimestampPattern();
+    }
+
+    public void setIndexTimestampPattern(String indexTimestampPattern) {
+        this.settings.setIndexTimestampPattern(indexTimestampPattern);
+    }
+
+    public FileSize getCompressionBlockSize() {
+        return this.settings.getCompressionBlockSize();
+    }
+
+    public void setCompressionBlockSize(FileSize compressionBlockSize) {
+        this.settings.setCompressionBlockSize(compressionBlockSize);
+    }
+
+    public int getCompressionThreads() {
+        return this.settings.getCompressionThreads();
+    }
+
+    public void setCompressionThreads(int compressionThreads) {
+        this.settings.setCompressionThreads(compressionThreads);
+    }
+
+    public String getMetricsName() {
+        return this.settings.getMetricsName();
+    }
+
+    public void setMetricsName(String metricsName) {
+        this.settings.setMetricsName(metricsName);
+    }
+
+    public void addMetricsListener(UploadMetricsListener metricsListener) {
+        this.settings.addMetricsListener(metricsListener);
+        if (this.s3Client != null) {
+            this.s3Client.getMetrics().addListener(metricsListener);
+        }
+    }
+
+    public UploadMetrics getMetrics() {
+        return this.s3Client == null ? null : this.s3Client.getMetrics();
     }
 }
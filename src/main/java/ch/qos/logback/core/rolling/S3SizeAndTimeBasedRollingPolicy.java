@@ -0,0 +1,53 @@
+package ch.qos.logback.core.rolling;
+
+import ch.qos.logback.core.rolling.SizeAndTimeBasedFNATP.Usage;
+import ch.qos.logback.core.util.FileSize;
+
+public class S3SizeAndTimeBasedRollingPolicy<E> extends S3TimeBasedRollingPolicy<E> {
+
+    // Several %i segments can be rolled within one period, so they are sent side by side.
+    public static final int DEFAULT_UPLOAD_WORKERS = 4;
+
+    private FileSize maxFileSize;
+
+    public S3SizeAndTimeBasedRollingPolicy() {
+        super();
+
+        setMaxFileSize(null);
+        setUploadWorkers(DEFAULT_UPLOAD_WORKERS);
+    }
+
+    @Override
+    public void start() {
+        if (getMaxFileSize() == null) {
+            addError("maxFileSize property is mandatory.");
+            return;
+        }
+        if (!isUnboundedTotalSizeCap() && totalSizeCap.getSize() < getMaxFileSize().getSize()) {
+            addError("totalSizeCap of [" + totalSizeCap + "] is smaller than maxFileSize [" + getMaxFileSize() + "] which is non-sensical");
+            return;
+        }
+
+        // Every segment that reaches maxFileSize is rolled as %i and goes through the same upload pipeline
+        // as a period boundary, so it is uploaded right away instead of at the end of the period.
+        SizeAndTimeBasedFNATP<E> sizeAndTimeBasedFNATP = new SizeAndTimeBasedFNATP<>(Usage.EMBEDDED);
+        sizeAndTimeBasedFNATP.setMaxFileSize(getMaxFileSize());
+        timeBasedFileNamingAndTriggeringPolicy = sizeAndTimeBasedFNATP;
+        addInfo("Archive files will be limited to [" + getMaxFileSize() + "] each.");
+
+        super.start();
+    }
+
+    public FileSize getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(FileSize maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    @Override
+    public String toString() {
+        return "c.q.l.core.rolling.S3SizeAndTimeBasedRollingPolicy@" + this.hashCode();
+    }
+}
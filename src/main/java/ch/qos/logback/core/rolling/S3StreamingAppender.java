@@ -0,0 +1,527 @@
+package ch.qos.logback.core.rolling;
+
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.rolling.aws.AmazonS3Client;
+import ch.qos.logback.core.rolling.aws.BlockShipper;
+import ch.qos.logback.core.rolling.aws.MultipartUpload;
+import ch.qos.logback.core.rolling.compress.CompressionCodec;
+import ch.qos.logback.core.rolling.helper.DateTokenConverter;
+import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import ch.qos.logback.core.rolling.helper.RollingCalendar;
+import ch.qos.logback.core.rolling.io.BlockRing;
+import ch.qos.logback.core.rolling.shutdown.RollingPolicyShutdownListener;
+import ch.qos.logback.core.rolling.shutdown.ShutdownHookType;
+import ch.qos.logback.core.rolling.shutdown.ShutdownHookUtil;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Writes encoded events straight into an off-heap ring of blocks that a background thread compresses and
+// uploads as multipart parts, so nothing touches the local disk. Objects roll by the %d and %i of
+// objectNamePattern like the rolling policies' files do.
+public class S3StreamingAppender<E> extends UnsynchronizedAppenderBase<E> implements RollingPolicyShutdownListener {
+
+    public static final long DEFAULT_BUFFER_SIZE = 32L * 1024 * 1024;
+    public static final long DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private Encoder<E> encoder;
+    private String objectNamePattern;
+    private FileSize maxFileSize;
+    private FileSize bufferSize;
+    private FileSize blockSize;
+    private boolean neverBlock;
+    private final S3UploadSettings settings = new S3UploadSettings();
+
+    private final ReentrantLock lock = new ReentrantLock(false);
+
+    private FileNamePattern namePattern;
+    private RollingCalendar rollingCalendar;
+    private AmazonS3Client s3Client;
+    private BlockRing ring;
+    private BlockShipper shipper;
+    private Thread shipperThread;
+    // Objects of the period the appender started in continue after the ones an earlier run left in S3. Both are
+    // only used on the shipper thread, which lists them before shipping anything.
+    private long startPeriodEnd;
+    private int startIndex;
+
+    // Guarded by lock.
+    private BlockRing.Block current;
+    private String objectName;
+    private Date objectDate;
+    private long nextRollTime;
+    private long objectBytes;
+    private int index;
+
+    public S3StreamingAppender() {
+        super();
+
+        setObjectNamePattern(null);
+        setMaxFileSize(null);
+        setBufferSize(new FileSize(DEFAULT_BUFFER_SIZE));
+        setBlockSize(new FileSize(DEFAULT_BLOCK_SIZE));
+        setNeverBlock(false);
+    }
+
+    @Override
+    public void start() {
+        int errors = 0;
+        if (getEncoder() == null) {
+            addError("No encoder set for the appender named \"" + getName() + "\"");
+            errors++;
+        }
+        if (getS3BucketName() == null) {
+            addError("No s3BucketName set for the appender named \"" + getName() + "\"");
+            errors++;
+        }
+        if (getObjectNamePattern() == null) {
+            addError("No objectNamePattern set for the appender named \"" + getName() + "\"");
+            errors++;
+        } else {
+            this.namePattern = new FileNamePattern(getObjectNamePattern(), getContext());
+            if (this.namePattern.getPrimaryDateTokenConverter() == null) {
+                addError("The objectNamePattern \"" + getObjectNamePattern() + "\" has no %d token");
+                errors++;
+            } else if (getMaxFileSize() != null && !this.namePattern.hasIntegerTokenCOnverter()) {
+                addError("The objectNamePattern \"" + getObjectNamePattern() + "\" needs an %i token for maxFileSize");
+                errors++;
+            }
+        }
+        if (getBlockSize().getSize() < 64 * 1024 || getBlockSize().getSize() > MultipartUpload.MIN_PART_SIZE) {
+            addError("The blockSize must be between 64KB and 5MB, not " + getBlockSize());
+            errors++;
+        }
+        CompressionCodec codec = CompressionCodec.fromFileName(getObjectNamePattern());
+        if (codec != null && !codec.isAvailable()) {
+            addError(codec + " compression needs its library on the classpath");
+            errors++;
+        }
+        if (errors > 0) {
+            return;
+        }
+
+        DateTokenConverter<Object> dateToken = this.namePattern.getPrimaryDateTokenConverter();
+        this.rollingCalendar = dateToken.getTimeZone() == null ? new RollingCalendar(dateToken.getDatePattern())
+                : new RollingCalendar(dateToken.getDatePattern(), dateToken.getTimeZone(), Locale.getDefault());
+
+        this.s3Client = this.settings.newClient(this, getName());
+        this.s3Client.setMultipartPartSize(Math.max(getMultipartPartSize().getSize(), MultipartUpload.MIN_PART_SIZE));
+        this.settings.startClient(this.s3Client, this, getName());
+
+        this.startPeriodEnd = 0;
+        this.startIndex = 0;
+        final Date started = new Date();
+        // %i starts over in every JVM, so the objects an earlier run left in the current period are counted
+        // first, off the thread that starts logging. The period's own roll resets it to 0 as usual.
+        final boolean continueIndex = this.namePattern.hasIntegerTokenCOnverter() && !isPrefixTimestamp();
+
+        this.ring = new BlockRing(getBufferSize().getSize(), (int) getBlockSize().getSize());
+        this.shipper = new BlockShipper(this.s3Client, this, this.ring, this::nameObject, codec);
+        this.shipperThread = new Thread(() -> {
+            if (continueIndex) {
+                this.startIndex = nextIndex(started);
+                this.startPeriodEnd = this.rollingCalendar.getNextTriggeringDate(started).getTime();
+            }
+            this.shipper.run();
+        }, "s3-streaming-" + getName());
+        this.shipperThread.setDaemon(true);
+        this.shipperThread.start();
+        addInfo("Streaming to S3 through " + this.ring.getBlockCount() + " off-heap blocks of " + getBlockSize()
+                + (codec == null ? "" : ", " + codec + " compressed"));
+
+        this.current = null;
+        this.objectName = null;
+        ShutdownHookUtil.registerShutdownHook(this, getShutdownHookType(), getShutdownTimeout().getMilliseconds());
+        super.start();
+    }
+
+    @Override
+    protected void append(E event) {
+        if (!isStarted()) {
+            return;
+        }
+        byte[] bytes = this.encoder.encode(event);
+
+        this.lock.lock();
+        try {
+            if (!isStarted()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (this.objectName != null && (now >= this.nextRollTime
+                    || (getMaxFileSize() != null && this.objectBytes >= getMaxFileSize().getSize()))) {
+                closeObject();
+                if (now < this.nextRollTime) {
+                    this.index++;
+                }
+            }
+            if (this.objectName == null) {
+                openObject(now);
+            }
+            if (!write(bytes)) {
+                this.s3Client.getMetrics().eventDropped();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.s3Client.getMetrics().eventDropped();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private String nameObject(Date date, int index) {
+        return this.namePattern.convertMultipleArguments(date,
+                date.getTime() < this.startPeriodEnd ? this.startIndex + index : index);
+    }
+
+    private int nextIndex(Date date) {
+        String first = this.namePattern.convertMultipleArguments(date, 0);
+        first = first.substring(Math.max(first.lastIndexOf('/'), first.lastIndexOf('\\')) + 1);
+        String firstKey = this.s3Client.getS3ObjectName(first, date, false);
+        List<String> keys;
+        try {
+            keys = this.s3Client.listKeys(firstKey.substring(0, firstKey.length() - first.length()));
+        } catch (RuntimeException e) {
+            addWarn("Could not list the objects of the current period, %i starts at 0 and may overwrite some", e);
+            return 0;
+        }
+
+        int next = 0;
+        for (int i = 0; i <= keys.size(); i++) {
+            String name = this.namePattern.convertMultipleArguments(date, i);
+            name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+            for (String key : keys) {
+                if (key.endsWith(name) && (key.length() == name.length()
+                        || key.charAt(key.length() - name.length() - 1) == '/'
+                        || key.charAt(key.length() - name.length() - 1) == '_')) {
+                    next = i + 1;
+                    break;
+                }
+            }
+        }
+        if (next > 0) {
+            addInfo("Continuing the current period at index " + next + " after the objects already in S3");
+        }
+        return next;
+    }
+
+    private void openObject(long now) throws InterruptedException {
+        if (now >= this.nextRollTime) {
+            this.index = 0;
+        }
+        this.objectDate = new Date(now);
+        this.objectName = this.namePattern.convertMultipleArguments(this.objectDate, this.index);
+        this.nextRollTime = this.rollingCalendar.getNextTriggeringDate(this.objectDate).getTime();
+        this.objectBytes = 0;
+        write(this.encoder.headerBytes());
+
+        // Without this the last object of a quiet period would wait in memory for the next event.
+        final String opened = this.objectName;
+        getContext().getScheduledExecutorService().schedule(() -> rollIfIdle(opened),
+                this.nextRollTime - now, TimeUnit.MILLISECONDS);
+    }
+
+    private void rollIfIdle(String opened) {
+        this.lock.lock();
+        try {
+            if (isStarted() && opened.equals(this.objectName)) {
+                closeObject();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // An object that never got a block, because neverBlock dropped all of its events, has nothing to finish.
+    private void closeObject() throws InterruptedException {
+        write(this.encoder.footerBytes());
+        if (this.current != null) {
+            seal(true);
+        }
+        this.objectName = null;
+    }
+
+    // Fills the current block and continues in free ones. Without neverBlock it waits for the shipper to hand
+    // blocks back, with it the event is dropped unless there is room for all of it right now.
+    private boolean write(byte[] bytes) throws InterruptedException {
+        if (bytes == null || bytes.length == 0) {
+            return true;
+        }
+        int room = (this.current == null ? 0 : this.current.getBuffer().remaining())
+                + this.ring.getFreeBlocks() * this.ring.getBlockSize();
+        if (isNeverBlock() && room < bytes.length) {
+            return false;
+        }
+
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (this.current == null) {
+                this.current = this.ring.acquire();
+            } else if (!this.current.getBuffer().hasRemaining()) {
+                seal(false);
+                continue;
+            }
+            int length = Math.min(this.current.getBuffer().remaining(), bytes.length - offset);
+            this.current.getBuffer().put(bytes, offset, length);
+            offset += length;
+        }
+        this.objectBytes += bytes.length;
+        return true;
+    }
+
+    private void seal(boolean last) {
+        this.current.setObject(this.objectDate, this.index, last);
+        this.ring.seal(this.current);
+        this.current = null;
+    }
+
+    @Override
+    public void stop() {
+        if (isStarted()) {
+            doShutdown();
+        }
+    }
+
+    @Override
+    public void doShutdown() {
+        doShutdown(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getShutdownTimeout().getMilliseconds()));
+    }
+
+    @Override
+    public List<String> doShutdown(long deadlineNanos) {
+        this.lock.lock();
+        try {
+            if (!isStarted()) {
+                return Collections.emptyList();
+            }
+            super.stop();
+            if (this.objectName != null) {
+                closeObject();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.lock.unlock();
+        }
+
+        List<String> unflushed = new ArrayList<>();
+        this.shipper.stop();
+        try {
+            TimeUnit.NANOSECONDS.timedJoin(this.shipperThread, Math.max(deadlineNanos - System.nanoTime(), 1));
+            if (this.shipperThread.isAlive()) {
+                String key = this.shipper.getCurrentKey();
+                unflushed.add((key == null ? "" : key + " and ") + this.ring.getSealedBlocks() + " more blocks");
+                this.shipperThread.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        unflushed.addAll(this.s3Client.doShutdown(deadlineNanos));
+        this.s3Client.getMetrics().unregisterMBean();
+        if (!unflushed.isEmpty()) {
+            addWarn("Not streamed to S3 within " + getShutdownTimeout() + ": " + unflushed);
+        }
+        return unflushed;
+    }
+
+    public AmazonS3Client getS3Client() {
+        return s3Client;
+    }
+
+    public Encoder<E> getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(Encoder<E> encoder) {
+        this.encoder = encoder;
+    }
+
+    public String getObjectNamePattern() {
+        return objectNamePattern;
+    }
+
+    public void setObjectNamePattern(String objectNamePattern) {
+        this.objectNamePattern = objectNamePattern;
+    }
+
+    public FileSize getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(FileSize maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public FileSize getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(FileSize bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public FileSize getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(FileSize blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public boolean isNeverBlock() {
+        return neverBlock;
+    }
+
+    public void setNeverBlock(boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+
+    public String getAwsAccessKey() {
+        return this.settings.getAwsAccessKey();
+    }
+
+    public void setAwsAccessKey(String awsAccessKey) {
+        this.settings.setAwsAccessKey(awsAccessKey);
+    }
+
+    public String getAwsSecretKey() {
+        return this.settings.getAwsSecretKey();
+    }
+
+    public void setAwsSecretKey(String awsSecretKey) {
+        this.settings.setAwsSecretKey(awsSecretKey);
+    }
+
+    public String getS3BucketName() {
+        return this.settings.getS3BucketName();
+    }
+
+    public void setS3BucketName(String s3BucketName) {
+        this.settings.setS3BucketName(s3BucketName);
+    }
+
+    public String getS3FolderName() {
+        return this.settings.getS3FolderName();
+    }
+
+    public void setS3FolderName(String s3FolderName) {
+        this.settings.setS3FolderName(s3FolderName);
+    }
+
+    public String getS3Endpoint() {
+        return this.settings.getS3Endpoint();
+    }
+
+    public void setS3Endpoint(String s3Endpoint) {
+        this.settings.setS3Endpoint(s3Endpoint);
+    }
+
+    public String getS3Region() {
+        return this.settings.getS3Region();
+    }
+
+    public void setS3Region(String s3Region) {
+        this.settings.setS3Region(s3Region);
+    }
+
+    public boolean isPrefixTimestamp() {
+        return this.settings.isPrefixTimestamp();
+    }
+
+    public void setPrefixTimestamp(boolean prefixTimestamp) {
+        this.settings.setPrefixTimestamp(prefixTimestamp);
+    }
+
+    public boolean isPrefixIdentifier() {
+        return this.settings.isPrefixIdentifier();
+    }
+
+    public void setPrefixIdentifier(boolean prefixIdentifier) {
+        this.settings.setPrefixIdentifier(prefixIdentifier);
+    }
+
+    public int getKeyShardCount() {
+        return this.settings.getKeyShardCount();
+    }
+
+    public void setKeyShardCount(int keyShardCount) {
+        this.settings.setKeyShardCount(keyShardCount);
+    }
+
+    public String getKeyShardPeriod() {
+        return this.settings.getKeyShardPeriod();
+    }
+
+    public void setKeyShardPeriod(String keyShardPeriod) {
+        this.settings.setKeyShardPeriod(keyShardPeriod);
+    }
+
+    public FileSize getMultipartPartSize() {
+        return this.settings.getMultipartPartSize();
+    }
+
+    public void setMultipartPartSize(FileSize multipartPartSize) {
+        this.settings.setMultipartPartSize(multipartPartSize);
+    }
+
+    public int getMultipartConcurrency() {
+        return this.settings.getMultipartConcurrency();
+    }
+
+    public void setMultipartConcurrency(int multipartConcurrency) {
+        this.settings.setMultipartConcurrency(multipartConcurrency);
+    }
+
+    public ShutdownHookType getShutdownHookType() {
+        return this.settings.getShutdownHookType();
+    }
+
+    public void setShutdownHookType(ShutdownHookType shutdownHookType) {
+        this.settings.setShutdownHookType(shutdownHookType);
+    }
+
+    public Duration getShutdownTimeout() {
+        return this.settings.getShutdownTimeout();
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.settings.setShutdownTimeout(shutdownTimeout);
+    }
+
+    public boolean isJmxMetrics() {
+        return this.settings.isJmxMetrics();
+    }
+
+    public void setJmxMetrics(boolean jmxMetrics) {
+        this.settings.setJmxMetrics(jmxMetrics);
+    }
+
+    public String getMetricsName() {
+        return this.settings.getMetricsName();
+    }
+
+    public void setMetricsName(String metricsName) {
+        this.settings.setMetricsName(metricsName);
+    }
+
+    @Override
+    public String toString() {
+        return "ch.qos.logback.core.rolling.S3StreamingAppender{" +
+                "name='" + getName() + '\'' +
+                ", objectNamePattern='" + objectNamePattern + '\'' +
+                ", s3BucketName='" + getS3BucketName() + '\'' +
+                ", s3FolderName='" + getS3FolderName() + '\'' +
+                '}';
+    }
+}
@@ -1,75 +1,245 @@
 package ch.qos.logback.core.rolling;
 
-import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.rolling.aws.ActiveFileStreamer;
 import ch.qos.logback.core.rolling.aws.AmazonS3Client;
+import ch.qos.logback.core.rolling.aws.UploadBackend;
+import ch.qos.logback.core.rolling.batch.BatchFormat;
+import ch.qos.logback.core.rolling.executor.UploadOverflowPolicy;
+import ch.qos.logback.core.rolling.io.UploadBodyMode;
+import ch.qos.logback.core.rolling.compress.BlockIndex;
+import ch.qos.logback.core.rolling.compress.ParallelCompressor;
+import ch.qos.logback.core.rolling.helper.CompressionMode;
+import ch.qos.logback.core.rolling.helper.Compressor;
+import ch.qos.logback.core.rolling.helper.FileFilterUtil;
+import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import ch.qos.logback.core.rolling.metrics.UploadMetrics;
+import ch.qos.logback.core.rolling.metrics.UploadMetricsListener;
 import ch.qos.logback.core.rolling.shutdown.RollingPolicyShutdownListener;
 import ch.qos.logback.core.rolling.shutdown.ShutdownHookType;
 import ch.qos.logback.core.rolling.shutdown.ShutdownHookUtil;
+import ch.qos.logback.core.rolling.spool.SpoolOverflowPolicy;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 
 public class S3TimeBasedRollingPolicy<E> extends TimeBasedRollingPolicy<E> implements RollingPolicyShutdownListener {
 
-    private String awsAccessKey;
-    private String awsSecretKey;
-    private String s3BucketName;
-    private String s3FolderName;
-    private ShutdownHookType shutdownHookType;
-    private boolean rolloverOnExit;
-    private boolean prefixTimestamp;
-    private boolean prefixIdentifier;
+    public static final long DEFAULT_STREAMING_INTERVAL_SECONDS = S3UploadSettings.DEFAULT_STREAMING_INTERVAL_SECONDS;
 
-    private AmazonS3Client s3Client;
-    private ExecutorService executor;
+    private final S3UploadSettings settings = new S3UploadSettings();
+    private boolean compressWhileUploading;
 
-    private Date lastPeriod;
+    private AmazonS3Client s3Client;
+    private ActiveFileStreamer streamer;
+    private FileAppender<?> appender;
+    private volatile Thread exitRolloverThread;
+    private ScheduledExecutorService streamingScheduler;
+    private CompressionMode uploadCompressionMode;
+    private ParallelCompressor parallelCompressor;
+    private ForkJoinPool compressionPool;
+    private CompressionMode archiveCompressionMode;
+    private Compressor archiveCompressor;
+    private final Map<CompletableFuture<Void>, String> pipelines = new ConcurrentHashMap<>();
+
+    private volatile Date lastPeriod;
 
     public S3TimeBasedRollingPolicy() {
         super();
 
-        setAwsAccessKey(null);
-        setAwsSecretKey(null);
-        setS3FolderName(null);
-        setS3BucketName(null);
-
-        setRolloverOnExit(false);
-        setPrefixTimestamp(false);
-        setPrefixIdentifier(false);
-        setShutdownHookType(ShutdownHookType.NONE);
+        setCompressWhileUploading(false);
 
         this.lastPeriod = new Date();
-        this.executor = Executors.newFixedThreadPool(1);
+        this.uploadCompressionMode = CompressionMode.NONE;
+        this.archiveCompressionMode = CompressionMode.NONE;
     }
 
     @Override
     public void start() {
         super.start();
 
+        if (isCompressWhileUploading()) {
+            if (compressionMode == CompressionMode.NONE) {
+                addWarn("compressWhileUploading is set but fileNamePattern does not end in .gz or .zip");
+            } else {
+                // Logback only renames the rolled file, it is compressed on its way to S3.
+                this.uploadCompressionMode = compressionMode;
+                compressionMode = CompressionMode.NONE;
+                addInfo("Compressing rolled files with " + this.uploadCompressionMode + " while uploading them");
+            }
+        }
+
+        if (isParallelCompression() || isSeekableIndex()) {
+            startParallelCompression();
+        }
+
+        if (compressionMode != CompressionMode.NONE) {
+            // Logback only renames the rolled file, it is compressed in the rollover's own pipeline.
+            this.archiveCompressionMode = compressionMode;
+            this.archiveCompressor = new Compressor(compressionMode);
+            this.archiveCompressor.setContext(this.context);
+            compressionMode = CompressionMode.NONE;
+        }
+
         this.lastPeriod = getLastPeriod();
 
-        this.s3Client = new AmazonS3Client(getAwsAccessKey(), getAwsSecretKey(), getS3BucketName(),
-                getS3FolderName(), isPrefixTimestamp(), isPrefixIdentifier());
+        this.s3Client = this.settings.newClient(this,
+                getActiveFileName() != null ? getActiveFileName() : getFileNamePattern());
+        this.settings.startClient(this.s3Client, this, getActiveFileName());
 
-        if (isPrefixIdentifier()) {
-            addInfo("Using identifier prefix \"" + this.s3Client.getIdentifier() + "\"");
+        if (isStreamActiveFile()) {
+            this.streamer = new ActiveFileStreamer(this.s3Client, this::getActiveFileName,
+                    timeBasedFileNamingAndTriggeringPolicy::getCurrentPeriodsFileNameWithoutCompressionSuffix,
+                    () -> this.lastPeriod);
+            this.streamingScheduler = this.settings.startStreaming(this, this.streamer);
         }
 
-        ShutdownHookUtil.registerShutdownHook(this, getShutdownHookType());
+        ShutdownHookUtil.registerShutdownHook(this, getShutdownHookType(), getShutdownTimeout().getMilliseconds());
+    }
+
+    private void startParallelCompression() {
+        if (this.uploadCompressionMode != CompressionMode.NONE) {
+            addWarn("parallelCompression is ignored because compressWhileUploading is set");
+            return;
+        }
+        this.parallelCompressor = this.settings.newParallelCompressor(this, getFileNamePattern());
+        if (this.parallelCompressor != null) {
+            // Logback only renames the rolled file to the pattern without suffix, we compress it ourselves.
+            fileNamePatternWithoutCompSuffix = new FileNamePattern(
+                    this.parallelCompressor.getCodec().stripSuffix(getFileNamePattern()), this.context);
+            compressionMode = CompressionMode.NONE;
+            this.compressionPool = this.parallelCompressor.getPool();
+        }
     }
 
     @Override
     public void rollover() throws RolloverFailure {
+        if (Thread.currentThread() == this.exitRolloverThread
+                && timeBasedFileNamingAndTriggeringPolicy.getElapsedPeriodsFileName() != null) {
+            // The elapsed name still points at the last rolled file (or %i segment), roll into the current one.
+            ((TimeBasedFileNamingAndTriggeringPolicyBase<E>) timeBasedFileNamingAndTriggeringPolicy).elapsedPeriodsFileName =
+                    timeBasedFileNamingAndTriggeringPolicy.getCurrentPeriodsFileNameWithoutCompressionSuffix();
+        }
         if (timeBasedFileNamingAndTriggeringPolicy.getElapsedPeriodsFileName() != null) {
-            final String elapsedPeriodsFileName = String.format("%s%s", timeBasedFileNamingAndTriggeringPolicy.getElapsedPeriodsFileName(),
-                    getFileNameSuffix());
+            final String rawFileName = timeBasedFileNamingAndTriggeringPolicy.getElapsedPeriodsFileName();
+            final String elapsedPeriodsFileName = String.format("%s%s", rawFileName, getFileNameSuffix());
+
+            // Rollovers are serialized by the appender, so the period only ever moves on this thread.
+            final Date period = this.lastPeriod;
+            final Runnable upload = () -> {
+                File sidecar = this.parallelCompressor != null && this.parallelCompressor.isIndexed()
+                        ? new File(elapsedPeriodsFileName + BlockIndex.SUFFIX) : null;
+                this.s3Client.uploadFileToS3Async(elapsedPeriodsFileName, period, false, this.uploadCompressionMode,
+                        sidecar);
+            };
+            // The rolled file is uploaded once its compression and logback's cleanup of old archives are done, no
+            // thread waits for them to finish.
+            final CompletableFuture<Void> uploadable = new CompletableFuture<>();
+            // A streamed period whose tail cannot be sent falls back to uploading the rolled file.
+            final Runnable streamFinisher = this.streamer == null ? null : this.streamer.detach(() -> track(
+                    elapsedPeriodsFileName,
+                    uploadable.thenCompose(ignored -> this.s3Client.handOff(elapsedPeriodsFileName, upload))));
 
-            super.rollover();
+            try {
+                super.rollover();
+                this.lastPeriod = getLastPeriod();
+            } finally {
+                if (this.streamer != null) {
+                    this.streamer.resume();
+                }
+            }
 
-            this.executor.execute(new UploadQueuer(elapsedPeriodsFileName, this.lastPeriod));
+            CompletableFuture<Void> compressed = compress(rawFileName, elapsedPeriodsFileName);
+            compressionFuture = compressed;
+            afterCleanUp(compressed, cleanUpFuture).whenComplete((ignored, ex) -> {
+                if (ex != null) {
+                    uploadable.completeExceptionally(ex);
+                } else {
+                    uploadable.complete(null);
+                }
+            });
+            // The streamed object only needs its tail, which the rolled file's channel still reads after logback
+            // renamed or compressed it away.
+            if (streamFinisher != null) {
+                track(elapsedPeriodsFileName, this.s3Client.handOff(elapsedPeriodsFileName, streamFinisher));
+            } else {
+                track(elapsedPeriodsFileName,
+                        uploadable.thenCompose(ignored -> this.s3Client.handOff(elapsedPeriodsFileName, upload)));
+            }
         } else {
-            this.s3Client.uploadFileToS3Async(getActiveFileName(), this.lastPeriod, true);
+            uploadActiveFile();
+        }
+    }
+
+    private CompletableFuture<Void> compress(String rawFileName, String elapsedPeriodsFileName) {
+        if (this.parallelCompressor != null) {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    long bytesIn = new File(rawFileName).length();
+                    long start = System.nanoTime();
+                    this.parallelCompressor.compress(rawFileName, elapsedPeriodsFileName);
+                    this.s3Client.getMetrics().compressionCompleted(elapsedPeriodsFileName, bytesIn,
+                            new File(elapsedPeriodsFileName).length(), System.nanoTime() - start);
+                } catch (IOException e) {
+                    addError("Could not compress " + rawFileName, e);
+                }
+            }, this.compressionPool);
+        }
+        if (this.archiveCompressor != null) {
+            return CompletableFuture.runAsync(() -> {
+                long bytesIn = new File(rawFileName).length();
+                long start = System.nanoTime();
+                this.archiveCompressor.compress(rawFileName, elapsedPeriodsFileName,
+                        FileFilterUtil.afterLastSlash(rawFileName));
+                this.s3Client.getMetrics().compressionCompleted(elapsedPeriodsFileName, bytesIn,
+                        new File(elapsedPeriodsFileName).length(), System.nanoTime() - start);
+            }, this.context.getScheduledExecutorService());
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // logback's cleanup is a plain Future, so it is waited for on one of logback's own threads, which also run it.
+    private CompletableFuture<Void> afterCleanUp(CompletableFuture<Void> compressed, Future<?> cleanUp) {
+        if (cleanUp == null || cleanUp.isDone()) {
+            return compressed;
+        }
+        return compressed.thenRunAsync(() -> {
+            try {
+                cleanUp.get();
+            } catch (ExecutionException e) {
+                // Reported by logback's archive remover.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, this.context.getScheduledExecutorService());
+    }
+
+    private void track(String elapsedPeriodsFileName, CompletableFuture<Void> pipeline) {
+        this.pipelines.put(pipeline, elapsedPeriodsFileName);
+        pipeline.whenComplete((ignored, ex) -> {
+            this.pipelines.remove(pipeline);
+            if (ex != null) {
+                addError("Could not queue " + elapsedPeriodsFileName + " for upload", ex);
+            }
+        });
+    }
+
+    private void uploadActiveFile() {
+        final String activeFileName = getActiveFileName();
+        final Date period = this.lastPeriod;
+        final Runnable upload = () -> this.s3Client.uploadFileToS3Async(activeFileName, period, true);
+        final Runnable streamFinisher = this.streamer == null ? null : this.streamer.detach(upload);
+        if (streamFinisher != null) {
+            track(activeFileName, this.s3Client.handOff(activeFileName, streamFinisher));
+        } else {
+            upload.run();
         }
     }
 
@@ -84,39 +254,98 @@ public class S3TimeBasedRollingPolicy<E> extends TimeBasedRollingPolicy<E> imple
         return lastPeriod;
     }
 
+    @Override
+    public void stop() {
+        if (this.streamingScheduler != null) {
+            this.streamingScheduler.shutdownNow();
+        }
+        if (this.s3Client != null) {
+            this.s3Client.getMetrics().unregisterMBean();
+        }
+        super.stop();
+    }
+
     @Override
     public void doShutdown() {
+        doShutdown(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getShutdownTimeout().getMilliseconds()));
+    }
+
+    @Override
+    public List<String> doShutdown(long deadlineNanos) {
+        if (this.streamingScheduler != null) {
+            this.streamingScheduler.shutdownNow();
+        }
+
+        this.s3Client.beginShutdown();
         if (isRolloverOnExit()) {
-            rollover();
+            rolloverOnExit();
         } else {
-            this.s3Client.uploadFileToS3Async(getActiveFileName(), this.lastPeriod, true);
+            uploadActiveFile();
         }
 
-        try {
-            this.executor.shutdown();
-            this.executor.awaitTermination(10, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            this.executor.shutdownNow();
+        List<String> unflushed = new ArrayList<>();
+        awaitPipelines(deadlineNanos, unflushed);
+        unflushed.addAll(this.s3Client.doShutdown(deadlineNanos));
+        this.s3Client.getMetrics().unregisterMBean();
+
+        if (this.compressionPool != null) {
+            this.compressionPool.shutdown();
         }
 
-        this.s3Client.doShutdown();
+        if (!unflushed.isEmpty()) {
+            addWarn(unflushed.size() + " uploads were not flushed within " + getShutdownTimeout() + ": " + unflushed);
+        }
+        return unflushed;
     }
 
-    private void waitForAsynchronousJobToStop(Future<?> aFuture, String jobDescription) {
-        if (aFuture != null) {
-            try {
-                aFuture.get(CoreConstants.SECONDS_TO_WAIT_FOR_COMPRESSION_JOBS, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                addError("Timeout while waiting for " + jobDescription + " job to finish", e);
-            } catch (Exception e) {
-                addError("Unexpected exception while waiting for " + jobDescription + " job to finish", e);
+    @Override
+    public void setParent(FileAppender<?> appender) {
+        super.setParent(appender);
+        this.appender = appender;
+    }
+
+    // Goes through the appender, which holds its lock around this rollover like around any other, so it cannot
+    // run at the same time as a rollover triggered by logging. The appender also closes and reopens the file.
+    private void rolloverOnExit() {
+        this.exitRolloverThread = Thread.currentThread();
+        try {
+            if (this.appender instanceof RollingFileAppender) {
+                ((RollingFileAppender<?>) this.appender).rollover();
+            } else {
+                rollover();
             }
+        } finally {
+            this.exitRolloverThread = null;
+        }
+    }
+
+    // A stream that falls back tracks the rolled file's upload from its own pipeline, so this waits until no
+    // pipeline is left running rather than for the ones running when it was called.
+    private void awaitPipelines(long deadlineNanos, List<String> unflushed) {
+        try {
+            while (this.pipelines.keySet().stream().anyMatch(pipeline -> !pipeline.isDone())) {
+                try {
+                    CompletableFuture.allOf(this.pipelines.keySet().toArray(new CompletableFuture<?>[0]))
+                            .get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    // Already reported by the failed pipeline.
+                }
+            }
+        } catch (TimeoutException e) {
+            for (String elapsedPeriodsFileName : this.pipelines.values()) {
+                unflushed.add(elapsedPeriodsFileName + " (compressing)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        this.lastPeriod = getLastPeriod();
     }
 
     private String getFileNameSuffix() {
-        switch (compressionMode) {
+        if (this.parallelCompressor != null) {
+            return this.parallelCompressor.getCodec().getSuffix();
+        }
+
+        switch (this.archiveCompressionMode) {
             case GZ:
                 return ".gz";
             case ZIP:
@@ -127,88 +356,398 @@ public class S3TimeBasedRollingPolicy<E> extends TimeBasedRollingPolicy<E> imple
         }
     }
 
-    class UploadQueuer implements Runnable {
-        private final String elapsedPeriodsFileName;
-        private final Date date;
-
-        public UploadQueuer(final String elapsedPeriodsFileName, final Date date) {
-            this.elapsedPeriodsFileName = elapsedPeriodsFileName;
-            this.date = date;
-        }
-
-        @Override
-        public void run() {
-            try {
-                waitForAsynchronousJobToStop(compressionFuture, "compression");
-                waitForAsynchronousJobToStop(cleanUpFuture, "clean-up");
-                s3Client.uploadFileToS3Async(elapsedPeriodsFileName, date);
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
-        }
-    }
-
     public String getAwsAccessKey() {
-        return awsAccessKey;
+        return this.settings.getAwsAccessKey();
     }
 
     public void setAwsAccessKey(String awsAccessKey) {
-        this.awsAccessKey = awsAccessKey;
+        this.settings.setAwsAccessKey(awsAccessKey);
     }
 
     public String getAwsSecretKey() {
-        return awsSecretKey;
+        return this.settings.getAwsSecretKey();
     }
 
     public void setAwsSecretKey(String awsSecretKey) {
-        this.awsSecretKey = awsSecretKey;
+        this.settings.setAwsSecretKey(awsSecretKey);
     }
 
     public String getS3BucketName() {
-        return s3BucketName;
+        return this.settings.getS3BucketName();
     }
 
     public void setS3BucketName(String s3BucketName) {
-        this.s3BucketName = s3BucketName;
+        this.settings.setS3BucketName(s3BucketName);
     }
 
     public String getS3FolderName() {
-        return s3FolderName;
+        return this.settings.getS3FolderName();
     }
 
     public void setS3FolderName(String s3FolderName) {
-        this.s3FolderName = s3FolderName;
+        this.settings.setS3FolderName(s3FolderName);
+    }
+
+    public String getS3Endpoint() {
+        return this.settings.getS3Endpoint();
+    }
+
+    public void setS3Endpoint(String s3Endpoint) {
+        this.settings.setS3Endpoint(s3Endpoint);
+    }
+
+    public String getS3Region() {
+        return this.settings.getS3Region();
+    }
+
+    public void setS3Region(String s3Region) {
+        this.settings.setS3Region(s3Region);
     }
 
     public boolean isRolloverOnExit() {
-        return rolloverOnExit;
+        return this.settings.isRolloverOnExit();
     }
 
     public void setRolloverOnExit(boolean rolloverOnExit) {
-        this.rolloverOnExit = rolloverOnExit;
+        this.settings.setRolloverOnExit(rolloverOnExit);
     }
 
     public ShutdownHookType getShutdownHookType() {
-        return shutdownHookType;
+        return this.settings.getShutdownHookType();
     }
 
     public void setShutdownHookType(ShutdownHookType shutdownHookType) {
-        this.shutdownHookType = shutdownHookType;
+        this.settings.setShutdownHookType(shutdownHookType);
+    }
+
+    public Duration getShutdownTimeout() {
+        return this.settings.getShutdownTimeout();
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.settings.setShutdownTimeout(shutdownTimeout);
     }
 
     public boolean isPrefixTimestamp() {
-        return prefixTimestamp;
+        return this.settings.isPrefixTimestamp();
     }
 
     public void setPrefixTimestamp(boolean prefixTimestamp) {
-        this.prefixTimestamp = prefixTimestamp;
+        this.settings.setPrefixTimestamp(prefixTimestamp);
     }
 
     public boolean isPrefixIdentifier() {
-        return prefixIdentifier;
+        return this.settings.isPrefixIdentifier();
     }
 
     public void setPrefixIdentifier(boolean prefixIdentifier) {
-        this.prefixIdentifier = prefixIdentifier;
+        this.settings.setPrefixIdentifier(prefixIdentifier);
+    }
+
+    public FileSize getMultipartThreshold() {
+        return this.settings.getMultipartThreshold();
+    }
+
+    public void setMultipartThreshold(FileSize multipartThreshold) {
+        this.settings.setMultipartThreshold(multipartThreshold);
+    }
+
+    public FileSize getMultipartPartSize() {
+        return this.settings.getMultipartPartSize();
+    }
+
+    public void setMultipartPartSize(FileSize multipartPartSize) {
+        this.settings.setMultipartPartSize(multipartPartSize);
+    }
+
+    public int getMultipartConcurrency() {
+        return this.settings.getMultipartConcurrency();
+    }
+
+    public void setMultipartConcurrency(int multipartConcurrency) {
+        this.settings.setMultipartConcurrency(multipartConcurrency);
+    }
+
+    public int getUploadWorkers() {
+        return this.settings.getUploadWorkers();
+    }
+
+    public void setUploadWorkers(int uploadWorkers) {
+        this.settings.setUploadWorkers(uploadWorkers);
+    }
+
+    public boolean isAdaptiveUploadConcurrency() {
+        return this.settings.isAdaptiveUploadConcurrency();
+    }
+
+    public void setAdaptiveUploadConcurrency(boolean adaptiveUploadConcurrency) {
+        this.settings.setAdaptiveUploadConcurrency(adaptiveUploadConcurrency);
+    }
+
+    public int getMaxUploadWorkers() {
+        return this.settings.getMaxUploadWorkers();
+    }
+
+    public void setMaxUploadWorkers(int maxUploadWorkers) {
+        this.settings.setMaxUploadWorkers(maxUploadWorkers);
+    }
+
+    public boolean isVirtualThreads() {
+        return this.settings.isVirtualThreads();
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.settings.setVirtualThreads(virtualThreads);
+    }
+
+    public Duration getUploadPriorityMaxDelay() {
+        return this.settings.getUploadPriorityMaxDelay();
+    }
+
+    public void setUploadPriorityMaxDelay(Duration uploadPriorityMaxDelay) {
+        this.settings.setUploadPriorityMaxDelay(uploadPriorityMaxDelay);
+    }
+
+    public int getUploadQueueSize() {
+        return this.settings.getUploadQueueSize();
+    }
+
+    public void setUploadQueueSize(int uploadQueueSize) {
+        this.settings.setUploadQueueSize(uploadQueueSize);
+    }
+
+    public UploadOverflowPolicy getUploadOverflowPolicy() {
+        return this.settings.getUploadOverflowPolicy();
+    }
+
+    public void setUploadOverflowPolicy(UploadOverflowPolicy uploadOverflowPolicy) {
+        this.settings.setUploadOverflowPolicy(uploadOverflowPolicy);
+    }
+
+    public String getUploadSpillFile() {
+        return this.settings.getUploadSpillFile();
+    }
+
+    public void setUploadSpillFile(String uploadSpillFile) {
+        this.settings.setUploadSpillFile(uploadSpillFile);
+    }
+
+    public String getUploadJournalFile() {
+        return this.settings.getUploadJournalFile();
+    }
+
+    public void setUploadJournalFile(String uploadJournalFile) {
+        this.settings.setUploadJournalFile(uploadJournalFile);
+    }
+
+    public int getUploadMaxRetries() {
+        return this.settings.getUploadMaxRetries();
+    }
+
+    public void setUploadMaxRetries(int uploadMaxRetries) {
+        this.settings.setUploadMaxRetries(uploadMaxRetries);
+    }
+
+    public BatchFormat getBatchFormat() {
+        return this.settings.getBatchFormat();
+    }
+
+    public void setBatchFormat(BatchFormat batchFormat) {
+        this.settings.setBatchFormat(batchFormat);
+    }
+
+    public FileSize getBatchMaxSize() {
+        return this.settings.getBatchMaxSize();
+    }
+
+    public void setBatchMaxSize(FileSize batchMaxSize) {
+        this.settings.setBatchMaxSize(batchMaxSize);
+    }
+
+    public Duration getBatchMaxAge() {
+        return this.settings.getBatchMaxAge();
+    }
+
+    public void setBatchMaxAge(Duration batchMaxAge) {
+        this.settings.setBatchMaxAge(batchMaxAge);
+    }
+
+    public String getBatchDirectory() {
+        return this.settings.getBatchDirectory();
+    }
+
+    public void setBatchDirectory(String batchDirectory) {
+        this.settings.setBatchDirectory(batchDirectory);
+    }
+
+    public boolean isStreamActiveFile() {
+        return this.settings.isStreamActiveFile();
+    }
+
+    public void setStreamActiveFile(boolean streamActiveFile) {
+        this.settings.setStreamActiveFile(streamActiveFile);
+    }
+
+    public Duration getStreamingInterval() {
+        return this.settings.getStreamingInterval();
+    }
+
+    public void setStreamingInterval(Duration streamingInterval) {
+        this.settings.setStreamingInterval(streamingInterval);
+    }
+
+    public boolean isCompressWhileUploading() {
+        return compressWhileUploading;
+    }
+
+    public void setCompressWhileUploading(boolean compressWhileUploading) {
+        this.compressWhileUploading = compressWhileUploading;
+    }
+
+    public boolean isParallelCompression() {
+        return this.settings.isParallelCompression();
+    }
+
+    public void setParallelCompression(boolean parallelCompression) {
+        this.settings.setParallelCompression(parallelCompression);
+    }
+
+    public boolean isSeekableIndex() {
+        return this.settings.isSeekableIndex();
+    }
+
+    public void setSeekableIndex(boolean seekableIndex) {
+        this.settings.setSeekableIndex(seekableIndex);
+    }
+
+    public String getIndexTimestampPattern() {
+        return this.settings.getIndexTimestampPattern();
+    }
+
+    public void setIndexTimestampPattern(String indexTimestampPattern) {
+        this.settings.setIndexTimestampPattern(indexTimestampPattern);
+    }
+
+    public FileSize getCompressionBlockSize() {
+        return this.settings.getCompressionBlockSize();
+    }
+
+    public void setCompressionBlockSize(FileSize compressionBlockSize) {
+        this.settings.setCompressionBlockSize(compressionBlockSize);
+    }
+
+    public int getCompressionThreads() {
+        return this.settings.getCompressionThreads();
+    }
+
+    public void setCompressionThreads(int compressionThreads) {
+        this.settings.setCompressionThreads(compressionThreads);
+    }
+
+    public UploadBackend getUploadBackend() {
+        return this.settings.getUploadBackend();
+    }
+
+    public void setUploadBackend(UploadBackend uploadBackend) {
+        this.settings.setUploadBackend(uploadBackend);
+    }
+
+    public FileSize getMaxUploadBytesPerSecond() {
+        return this.settings.getMaxUploadBytesPerSecond();
+    }
+
+    public void setMaxUploadBytesPerSecond(FileSize maxUploadBytesPerSecond) {
+        this.settings.setMaxUploadBytesPerSecond(maxUploadBytesPerSecond);
+    }
+
+    public FileSize getMaxProcessUploadBytesPerSecond() {
+        return this.settings.getMaxProcessUploadBytesPerSecond();
+    }
+
+    public void setMaxProcessUploadBytesPerSecond(FileSize maxProcessUploadBytesPerSecond) {
+        this.settings.setMaxProcessUploadBytesPerSecond(maxProcessUploadBytesPerSecond);
+    }
+
+    public FileSize getUploadBurstSize() {
+        return this.settings.getUploadBurstSize();
+    }
+
+    public void setUploadBurstSize(FileSize uploadBurstSize) {
+        this.settings.setUploadBurstSize(uploadBurstSize);
+    }
+
+    public UploadBodyMode getUploadBodyMode() {
+        return this.settings.getUploadBodyMode();
+    }
+
+    public void setUploadBodyMode(UploadBodyMode uploadBodyMode) {
+        this.settings.setUploadBodyMode(uploadBodyMode);
+    }
+
+    public boolean isDeleteAfterUpload() {
+        return this.settings.isDeleteAfterUpload();
+    }
+
+    public void setDeleteAfterUpload(boolean deleteAfterUpload) {
+        this.settings.setDeleteAfterUpload(deleteAfterUpload);
+    }
+
+    public FileSize getSpoolMaxSize() {
+        return this.settings.getSpoolMaxSize();
+    }
+
+    public void setSpoolMaxSize(FileSize spoolMaxSize) {
+        this.settings.setSpoolMaxSize(spoolMaxSize);
+    }
+
+    public SpoolOverflowPolicy getSpoolOverflowPolicy() {
+        return this.settings.getSpoolOverflowPolicy();
+    }
+
+    public void setSpoolOverflowPolicy(SpoolOverflowPolicy spoolOverflowPolicy) {
+        this.settings.setSpoolOverflowPolicy(spoolOverflowPolicy);
+    }
+
+    public int getKeyShardCount() {
+        return this.settings.getKeyShardCount();
+    }
+
+    public void setKeyShardCount(int keyShardCount) {
+        this.settings.setKeyShardCount(keyShardCount);
+    }
+
+    public String getKeyShardPeriod() {
+        return this.settings.getKeyShardPeriod();
+    }
+
+    public void setKeyShardPeriod(String keyShardPeriod) {
+        this.settings.setKeyShardPeriod(keyShardPeriod);
+    }
+
+    public boolean isJmxMetrics() {
+        return this.settings.isJmxMetrics();
+    }
+
+    public void setJmxMetrics(boolean jmxMetrics) {
+        this.settings.setJmxMetrics(jmxMetrics);
+    }
+
+    public String getMetricsName() {
+        return this.settings.getMetricsName();
+    }
+
+    public void setMetricsName(String metricsName) {
+        this.settings.setMetricsName(metricsName);
+    }
+
+    public void addMetricsListener(UploadMetricsListener metricsListener) {
+        this.settings.addMetricsListener(metricsListener);
+        if (this.s3Client != null) {
+            this.s3Client.getMetrics().addListener(metricsListener);
+        }
+    }
+
+    public UploadMetrics getMetrics() {
+        return this.s3Client == null ? null : this.s3Client.getMetrics();
     }
 }
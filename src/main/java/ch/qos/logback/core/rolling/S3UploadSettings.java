@@ -0,0 +1,676 @@
+package ch.qos.logback.core.rolling;
+
+import ch.qos.logback.core.rolling.aws.ActiveFileStreamer;
+import ch.qos.logback.core.rolling.aws.AmazonS3Client;
+import ch.qos.logback.core.rolling.aws.S3KeyShards;
+import ch.qos.logback.core.rolling.aws.UploadBackend;
+import ch.qos.logback.core.rolling.batch.BatchFormat;
+import ch.qos.logback.core.rolling.compress.CompressionCodec;
+import ch.qos.logback.core.rolling.compress.ParallelCompressor;
+import ch.qos.logback.core.rolling.compress.TimestampScanner;
+import ch.qos.logback.core.rolling.executor.AdaptiveConcurrencyLimit;
+import ch.qos.logback.core.rolling.executor.UploadExecutor;
+import ch.qos.logback.core.rolling.executor.UploadOverflowPolicy;
+import ch.qos.logback.core.rolling.executor.UploadThreads;
+import ch.qos.logback.core.rolling.io.UploadBodyMode;
+import ch.qos.logback.core.rolling.metrics.UploadMetricsListener;
+import ch.qos.logback.core.rolling.shutdown.ShutdownCoordinator;
+import ch.qos.logback.core.rolling.shutdown.ShutdownHookType;
+import ch.qos.logback.core.rolling.spool.SpoolOverflowPolicy;
+import ch.qos.logback.core.spi.ContextAware;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
+
+import javax.management.JMException;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// The S3 settings the rolling policies and the streaming appender have in common, and the client built from them.
+// Joran only sees the setters of the configured class itself, so each of them keeps its own that delegate here.
+public class S3UploadSettings {
+
+    public static final long DEFAULT_STREAMING_INTERVAL_SECONDS = 10;
+
+    private String awsAccessKey;
+    private String awsSecretKey;
+    private String s3BucketName;
+    private String s3FolderName;
+    private String s3Endpoint;
+    private String s3Region;
+    private ShutdownHookType shutdownHookType;
+    private Duration shutdownTimeout;
+    private boolean rolloverOnExit;
+    private boolean prefixTimestamp;
+    private boolean prefixIdentifier;
+    private FileSize multipartThreshold;
+    private FileSize multipartPartSize;
+    private int multipartConcurrency;
+    private int uploadWorkers;
+    private boolean adaptiveUploadConcurrency;
+    private int maxUploadWorkers;
+    private boolean virtualThreads;
+    private Duration uploadPriorityMaxDelay;
+    private int uploadQueueSize;
+    private UploadOverflowPolicy uploadOverflowPolicy;
+    private String uploadSpillFile;
+    private String uploadJournalFile;
+    private int uploadMaxRetries;
+    private BatchFormat batchFormat;
+    private FileSize batchMaxSize;
+    private Duration batchMaxAge;
+    private String batchDirectory;
+    private UploadBackend uploadBackend;
+    private FileSize maxUploadBytesPerSecond;
+    private FileSize maxProcessUploadBytesPerSecond;
+    private FileSize uploadBurstSize;
+    private UploadBodyMode uploadBodyMode;
+    private boolean deleteAfterUpload;
+    private FileSize spoolMaxSize;
+    private SpoolOverflowPolicy spoolOverflowPolicy;
+    private int keyShardCount;
+    private String keyShardPeriod;
+    private boolean streamActiveFile;
+    private Duration streamingInterval;
+    private boolean parallelCompression;
+    private FileSize compressionBlockSize;
+    private boolean seekableIndex;
+    private String indexTimestampPattern;
+    private int compressionThreads;
+    private boolean jmxMetrics;
+    private String metricsName;
+    private final List<UploadMetricsListener> metricsListeners = new ArrayList<>();
+
+    public S3UploadSettings() {
+        setAwsAccessKey(null);
+        setAwsSecretKey(null);
+        setS3FolderName(null);
+        setS3BucketName(null);
+        setS3Endpoint(null);
+        setS3Region(null);
+
+        setRolloverOnExit(false);
+        setPrefixTimestamp(false);
+        setPrefixIdentifier(false);
+        setShutdownHookType(ShutdownHookType.NONE);
+        setShutdownTimeout(Duration.buildByMilliseconds(ShutdownCoordinator.DEFAULT_TIMEOUT_MILLIS));
+        setMultipartThreshold(null);
+        setMultipartPartSize(new FileSize(AmazonS3Client.DEFAULT_MULTIPART_PART_SIZE));
+        setMultipartConcurrency(AmazonS3Client.DEFAULT_MULTIPART_CONCURRENCY);
+        setUploadWorkers(UploadExecutor.DEFAULT_WORKERS);
+        setAdaptiveUploadConcurrency(false);
+        setMaxUploadWorkers(AdaptiveConcurrencyLimit.DEFAULT_MAX_LIMIT);
+        setVirtualThreads(false);
+        setUploadPriorityMaxDelay(Duration.buildByMilliseconds(AmazonS3Client.DEFAULT_UPLOAD_PRIORITY_MAX_DELAY_MILLIS));
+        setUploadQueueSize(UploadExecutor.DEFAULT_QUEUE_SIZE);
+        setUploadOverflowPolicy(UploadOverflowPolicy.BLOCK);
+        setUploadSpillFile(null);
+        setUploadJournalFile(null);
+        setUploadMaxRetries(AmazonS3Client.DEFAULT_UPLOAD_MAX_RETRIES);
+        setBatchFormat(null);
+        setBatchMaxSize(new FileSize(AmazonS3Client.DEFAULT_BATCH_MAX_SIZE));
+        setBatchMaxAge(Duration.buildByMilliseconds(AmazonS3Client.DEFAULT_BATCH_MAX_AGE_MILLIS));
+        setBatchDirectory(null);
+        setUploadBackend(null);
+        setMaxUploadBytesPerSecond(null);
+        setMaxProcessUploadBytesPerSecond(null);
+        setUploadBurstSize(null);
+        setUploadBodyMode(UploadBodyMode.FILE);
+        setDeleteAfterUpload(false);
+        setSpoolMaxSize(null);
+        setSpoolOverflowPolicy(SpoolOverflowPolicy.BLOCK);
+        setKeyShardCount(0);
+        setKeyShardPeriod(S3KeyShards.DEFAULT_PERIOD);
+        setStreamActiveFile(false);
+        setStreamingInterval(Duration.buildBySeconds(DEFAULT_STREAMING_INTERVAL_SECONDS));
+        setParallelCompression(false);
+        setCompressionBlockSize(new FileSize(ParallelCompressor.DEFAULT_BLOCK_SIZE));
+        setSeekableIndex(false);
+        setIndexTimestampPattern(TimestampScanner.DEFAULT_PATTERN);
+        setCompressionThreads(Runtime.getRuntime().availableProcessors());
+        setJmxMetrics(true);
+        setMetricsName(null);
+    }
+
+    // The client is configured but not started yet. The spill file and batch directory default to places next to
+    // localFileName, and what is set up is reported to status.
+    public AmazonS3Client newClient(ContextAware status, String localFileName) {
+        AmazonS3Client s3Client = new AmazonS3Client(getAwsAccessKey(), getAwsSecretKey(), getS3BucketName(),
+                getS3FolderName(), isPrefixTimestamp(), isPrefixIdentifier());
+        s3Client.setStatus(status);
+        s3Client.setEndpoint(getS3Endpoint());
+        s3Client.setRegion(getS3Region());
+        s3Client.setMultipartPartSize(getMultipartPartSize().getSize());
+        s3Client.setMultipartConcurrency(getMultipartConcurrency());
+
+        if (getMultipartThreshold() != null) {
+            s3Client.setMultipartThreshold(getMultipartThreshold().getSize());
+            status.addInfo("Using multipart upload for files of " + getMultipartThreshold() + " or more");
+        }
+
+        if (isVirtualThreads()) {
+            if (UploadThreads.isVirtualThreadsSupported()) {
+                status.addInfo("Uploading on virtual threads");
+            } else {
+                status.addWarn("virtualThreads requires Java 21 or later, uploading on platform threads");
+            }
+        }
+        s3Client.setUploadWorkers(getUploadWorkers());
+        s3Client.setVirtualThreads(isVirtualThreads());
+        if (isAdaptiveUploadConcurrency()) {
+            s3Client.setAdaptiveUploadConcurrency(true);
+            s3Client.setMaxUploadWorkers(getMaxUploadWorkers());
+            status.addInfo("Adapting upload concurrency to S3 between 1 and " + getMaxUploadWorkers()
+                    + " uploads, starting at " + getUploadWorkers());
+        }
+        s3Client.setUploadQueueSize(getUploadQueueSize());
+        s3Client.setUploadPriorityMaxDelay(getUploadPriorityMaxDelay().getMilliseconds());
+        s3Client.setUploadOverflowPolicy(getUploadOverflowPolicy());
+        if (getUploadOverflowPolicy() == UploadOverflowPolicy.SPILL_TO_DISK) {
+            String spillFile = getUploadSpillFile() != null ? getUploadSpillFile() : localFileName + ".upload-spill";
+            s3Client.setUploadSpillFile(new File(spillFile));
+            status.addInfo("Spilling pending uploads to \"" + spillFile + "\" when the upload queue is full");
+        }
+        s3Client.setUploadMaxRetries(getUploadMaxRetries());
+        if (getUploadJournalFile() != null) {
+            s3Client.setUploadJournalFile(new File(getUploadJournalFile()));
+            status.addInfo("Journaling uploads to \"" + getUploadJournalFile() + "\"");
+        }
+        if (getBatchFormat() != null) {
+            String batchDirectory = getBatchDirectory() != null ? getBatchDirectory()
+                    : new File(localFileName).getAbsoluteFile().getParent() + File.separator + ".s3-batches";
+            s3Client.setBatchFormat(getBatchFormat());
+            s3Client.setBatchMaxSize(getBatchMaxSize().getSize());
+            s3Client.setBatchMaxAge(getBatchMaxAge().getMilliseconds());
+            s3Client.setBatchDirectory(new File(batchDirectory));
+            status.addInfo("Batching rolled files into " + getBatchFormat() + " objects of up to " + getBatchMaxSize()
+                    + " or " + getBatchMaxAge() + " in \"" + batchDirectory + "\"");
+        }
+        if (getUploadBackend() != null) {
+            s3Client.setUploadBackend(getUploadBackend());
+            status.addInfo("Uploading with " + getUploadBackend().getClass().getName());
+        }
+        if (getUploadBurstSize() != null) {
+            s3Client.setUploadBurstSize(getUploadBurstSize().getSize());
+        }
+        if (getMaxUploadBytesPerSecond() != null) {
+            s3Client.setMaxUploadBytesPerSecond(getMaxUploadBytesPerSecond().getSize());
+            status.addInfo("Throttling uploads to " + getMaxUploadBytesPerSecond() + " per second");
+        }
+        if (getMaxProcessUploadBytesPerSecond() != null) {
+            s3Client.setMaxProcessUploadBytesPerSecond(getMaxProcessUploadBytesPerSecond().getSize());
+            status.addInfo("Throttling the uploads of all policies to " + getMaxProcessUploadBytesPerSecond()
+                    + " per second");
+        }
+        s3Client.setUploadBodyMode(getUploadBodyMode());
+        if (getUploadBodyMode() != UploadBodyMode.FILE) {
+            status.addInfo("Reading uploaded files through " + getUploadBodyMode() + " buffers");
+        }
+        s3Client.setDeleteAfterUpload(isDeleteAfterUpload());
+        if (isDeleteAfterUpload()) {
+            status.addInfo("Deleting rolled files once S3 confirmed their upload");
+        }
+        if (getSpoolMaxSize() != null) {
+            s3Client.setSpoolMaxSize(getSpoolMaxSize().getSize());
+            s3Client.setSpoolOverflowPolicy(getSpoolOverflowPolicy());
+            status.addInfo("Keeping at most " + getSpoolMaxSize() + " of rolled files waiting for upload, "
+                    + getSpoolOverflowPolicy() + " beyond that");
+        }
+        if (getKeyShardCount() > 0) {
+            s3Client.setKeyShardCount(getKeyShardCount());
+            s3Client.setKeyShardPeriod(getKeyShardPeriod());
+            status.addInfo("Spreading keys over " + getKeyShardCount() + " shard prefixes, one per host and \""
+                    + getKeyShardPeriod() + "\" period");
+        }
+        for (UploadMetricsListener listener : this.metricsListeners) {
+            s3Client.getMetrics().addListener(listener);
+        }
+        return s3Client;
+    }
+
+    // Starts a client from newClient() and reports on it: the metrics MBean, named defaultMetricsName unless
+    // metricsName is set, whether S3 can be reached and the identifier prefix.
+    public void startClient(AmazonS3Client s3Client, ContextAware status, String defaultMetricsName) {
+        s3Client.start();
+
+        if (isJmxMetrics()) {
+            String name = getMetricsName() != null ? getMetricsName() : defaultMetricsName;
+            try {
+                s3Client.getMetrics().registerMBean(name);
+            } catch (JMException e) {
+                status.addWarn("Could not register the upload metrics MBean for \"" + name + "\"", e);
+            }
+        }
+
+        s3Client.getWarmUp().whenComplete((amazonS3, ex) -> {
+            if (ex != null) {
+                status.addWarn("Could not reach S3 bucket \"" + getS3BucketName() + "\", uploads will retry", ex);
+            }
+        });
+
+        if (isPrefixIdentifier()) {
+            s3Client.getIdentifierAsync().thenAccept(identifier ->
+                    status.addInfo("Using identifier prefix \"" + identifier + "\""));
+        }
+    }
+
+    // Ships the streamer's complete parts every streamingInterval on a daemon thread of its own, until the returned
+    // scheduler is shut down, which the owner does when it stops.
+    public ScheduledExecutorService startStreaming(ContextAware status, ActiveFileStreamer streamer) {
+        ScheduledExecutorService streamingScheduler = Executors.newSingleThreadScheduledExecutor(
+                task -> UploadThreads.newThread(task, "s3-active-file-streamer", true));
+        streamingScheduler.scheduleWithFixedDelay(streamer::ship, getStreamingInterval().getMilliseconds(),
+                getStreamingInterval().getMilliseconds(), TimeUnit.MILLISECONDS);
+        status.addInfo("Streaming the active file to S3 every " + getStreamingInterval());
+        return streamingScheduler;
+    }
+
+    // The codec follows the suffix of fileNamePattern. Returns null, after saying why, when there is none this
+    // can compress with. The compressor's pool is its own, shut it down with the policy.
+    public ParallelCompressor newParallelCompressor(ContextAware status, String fileNamePattern) {
+        CompressionCodec codec = CompressionCodec.fromFileName(fileNamePattern);
+        if (codec == null) {
+            status.addWarn("parallelCompression is set but fileNamePattern does not end in .gz, .zst or .lz4");
+            return null;
+        }
+        if (!codec.isAvailable()) {
+            status.addError("parallelCompression with " + codec + " requires its codec library on the classpath");
+            return null;
+        }
+
+        ForkJoinPool compressionPool = new ForkJoinPool(Math.max(getCompressionThreads(), 1));
+        ParallelCompressor parallelCompressor = new ParallelCompressor(codec,
+                (int) Math.min(getCompressionBlockSize().getSize(), Integer.MAX_VALUE), compressionPool,
+                isSeekableIndex() ? new TimestampScanner(getIndexTimestampPattern()) : null);
+        status.addInfo("Compressing rolled files with " + codec + " on " + compressionPool.getParallelism() + " threads");
+        if (isSeekableIndex()) {
+            status.addInfo("Uploading a block index next to every rolled file, reading \"" + getIndexTimestampPattern()
+                    + "\" timestamps");
+        }
+        return parallelCompressor;
+    }
+
+    public String getAwsAccessKey() {
+        return awsAccessKey;
+    }
+
+    public void setAwsAccessKey(String awsAccessKey) {
+        this.awsAccessKey = awsAccessKey;
+    }
+
+    public String getAwsSecretKey() {
+        return awsSecretKey;
+    }
+
+    public void setAwsSecretKey(String awsSecretKey) {
+        this.awsSecretKey = awsSecretKey;
+    }
+
+    public String getS3BucketName() {
+        return s3BucketName;
+    }
+
+    public void setS3BucketName(String s3BucketName) {
+        this.s3BucketName = s3BucketName;
+    }
+
+    public String getS3FolderName() {
+        return s3FolderName;
+    }
+
+    public void setS3FolderName(String s3FolderName) {
+        this.s3FolderName = s3FolderName;
+    }
+
+    public String getS3Endpoint() {
+        return s3Endpoint;
+    }
+
+    public void setS3Endpoint(String s3Endpoint) {
+        this.s3Endpoint = s3Endpoint;
+    }
+
+    public String getS3Region() {
+        return s3Region;
+    }
+
+    public void setS3Region(String s3Region) {
+        this.s3Region = s3Region;
+    }
+
+    public boolean isRolloverOnExit() {
+        return rolloverOnExit;
+    }
+
+    public void setRolloverOnExit(boolean rolloverOnExit) {
+        this.rolloverOnExit = rolloverOnExit;
+    }
+
+    public ShutdownHookType getShutdownHookType() {
+        return shutdownHookType;
+    }
+
+    public void setShutdownHookType(ShutdownHookType shutdownHookType) {
+        this.shutdownHookType = shutdownHookType;
+    }
+
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public boolean isPrefixTimestamp() {
+        return prefixTimestamp;
+    }
+
+    public void setPrefixTimestamp(boolean prefixTimestamp) {
+        this.prefixTimestamp = prefixTimestamp;
+    }
+
+    public boolean isPrefixIdentifier() {
+        return prefixIdentifier;
+    }
+
+    public void setPrefixIdentifier(boolean prefixIdentifier) {
+        this.prefixIdentifier = prefixIdentifier;
+    }
+
+    public FileSize getMultipartThreshold() {
+        return multipartThreshold;
+    }
+
+    public void setMultipartThreshold(FileSize multipartThreshold) {
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    public FileSize getMultipartPartSize() {
+        return multipartPartSize;
+    }
+
+    public void setMultipartPartSize(FileSize multipartPartSize) {
+        this.multipartPartSize = multipartPartSize;
+    }
+
+    public int getMultipartConcurrency() {
+        return multipartConcurrency;
+    }
+
+    public void setMultipartConcurrency(int multipartConcurrency) {
+        this.multipartConcurrency = multipartConcurrency;
+    }
+
+    public int getUploadWorkers() {
+        return uploadWorkers;
+    }
+
+    public void setUploadWorkers(int uploadWorkers) {
+        this.uploadWorkers = uploadWorkers;
+    }
+
+    public boolean isAdaptiveUploadConcurrency() {
+        return adaptiveUploadConcurrency;
+    }
+
+    public void setAdaptiveUploadConcurrency(boolean adaptiveUploadConcurrency) {
+        this.adaptiveUploadConcurrency = adaptiveUploadConcurrency;
+    }
+
+    public int getMaxUploadWorkers() {
+        return maxUploadWorkers;
+    }
+
+    public void setMaxUploadWorkers(int maxUploadWorkers) {
+        this.maxUploadWorkers = maxUploadWorkers;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public Duration getUploadPriorityMaxDelay() {
+        return uploadPriorityMaxDelay;
+    }
+
+    public void setUploadPriorityMaxDelay(Duration uploadPriorityMaxDelay) {
+        this.uploadPriorityMaxDelay = uploadPriorityMaxDelay;
+    }
+
+    public int getUploadQueueSize() {
+        return uploadQueueSize;
+    }
+
+    public void setUploadQueueSize(int uploadQueueSize) {
+        this.uploadQueueSize = uploadQueueSize;
+    }
+
+    public UploadOverflowPolicy getUploadOverflowPolicy() {
+        return uploadOverflowPolicy;
+    }
+
+    public void setUploadOverflowPolicy(UploadOverflowPolicy uploadOverflowPolicy) {
+        this.uploadOverflowPolicy = uploadOverflowPolicy;
+    }
+
+    public String getUploadSpillFile() {
+        return uploadSpillFile;
+    }
+
+    public void setUploadSpillFile(String uploadSpillFile) {
+        this.uploadSpillFile = uploadSpillFile;
+    }
+
+    public String getUploadJournalFile() {
+        return uploadJournalFile;
+    }
+
+    public void setUploadJournalFile(String uploadJournalFile) {
+        this.uploadJournalFile = uploadJournalFile;
+    }
+
+    public int getUploadMaxRetries() {
+        return uploadMaxRetries;
+    }
+
+    public void setUploadMaxRetries(int uploadMaxRetries) {
+        this.uploadMaxRetries = uploadMaxRetries;
+    }
+
+    public BatchFormat getBatchFormat() {
+        return batchFormat;
+    }
+
+    public void setBatchFormat(BatchFormat batchFormat) {
+        this.batchFormat = batchFormat;
+    }
+
+    public FileSize getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public void setBatchMaxSize(FileSize batchMaxSize) {
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    public Duration getBatchMaxAge() {
+        return batchMaxAge;
+    }
+
+    public void setBatchMaxAge(Duration batchMaxAge) {
+        this.batchMaxAge = batchMaxAge;
+    }
+
+    public String getBatchDirectory() {
+        return batchDirectory;
+    }
+
+    public void setBatchDirectory(String batchDirectory) {
+        this.batchDirectory = batchDirectory;
+    }
+
+    public UploadBackend getUploadBackend() {
+        return uploadBackend;
+    }
+
+    public void setUploadBackend(UploadBackend uploadBackend) {
+        this.uploadBackend = uploadBackend;
+    }
+
+    public FileSize getMaxUploadBytesPerSecond() {
+        return maxUploadBytesPerSecond;
+    }
+
+    public void setMaxUploadBytesPerSecond(FileSize maxUploadBytesPerSecond) {
+        this.maxUploadBytesPerSecond = maxUploadBytesPerSecond;
+    }
+
+    public FileSize getMaxProcessUploadBytesPerSecond() {
+        return maxProcessUploadBytesPerSecond;
+    }
+
+    public void setMaxProcessUploadBytesPerSecond(FileSize maxProcessUploadBytesPerSecond) {
+        this.maxProcessUploadBytesPerSecond = maxProcessUploadBytesPerSecond;
+    }
+
+    public FileSize getUploadBurstSize() {
+        return uploadBurstSize;
+    }
+
+    public void setUploadBurstSize(FileSize uploadBurstSize) {
+        this.uploadBurstSize = uploadBurstSize;
+    }
+
+    public UploadBodyMode getUploadBodyMode() {
+        return uploadBodyMode;
+    }
+
+    public void setUploadBodyMode(UploadBodyMode uploadBodyMode) {
+        this.uploadBodyMode = uploadBodyMode;
+    }
+
+    public boolean isDeleteAfterUpload() {
+        return deleteAfterUpload;
+    }
+
+    public void setDeleteAfterUpload(boolean deleteAfterUpload) {
+        this.deleteAfterUpload = deleteAfterUpload;
+    }
+
+    public FileSize getSpoolMaxSize() {
+        return spoolMaxSize;
+    }
+
+    public void setSpoolMaxSize(FileSize spoolMaxSize) {
+        this.spoolMaxSize = spoolMaxSize;
+    }
+
+    public SpoolOverflowPolicy getSpoolOverflowPolicy() {
+        return spoolOverflowPolicy;
+    }
+
+    public void setSpoolOverflowPolicy(SpoolOverflowPolicy spoolOverflowPolicy) {
+        this.spoolOverflowPolicy = spoolOverflowPolicy;
+    }
+
+    public int getKeyShardCount() {
+        return keyShardCount;
+    }
+
+    public void setKeyShardCount(int keyShardCount) {
+        this.keyShardCount = keyShardCount;
+    }
+
+    public String getKeyShardPeriod() {
+        return keyShardPeriod;
+    }
+
+    public void setKeyShardPeriod(String keyShardPeriod) {
+        this.keyShardPeriod = keyShardPeriod;
+    }
+
+    public boolean isStreamActiveFile() {
+        return streamActiveFile;
+    }
+
+    public void setStreamActiveFile(boolean streamActiveFile) {
+        this.streamActiveFile = streamActiveFile;
+    }
+
+    public Duration getStreamingInterval() {
+        return streamingInterval;
+    }
+
+    public void setStreamingInterval(Duration streamingInterval) {
+        this.streamingInterval = streamingInterval;
+    }
+
+    public boolean isParallelCompression() {
+        return parallelCompression;
+    }
+
+    public void setParallelCompression(boolean parallelCompression) {
+        this.parallelCompression = parallelCompression;
+    }
+
+    public boolean isSeekableIndex() {
+        return seekableIndex;
+    }
+
+    public void setSeekableIndex(boolean seekableIndex) {
+        this.seekableIndex = seekableIndex;
+    }
+
+    public String getIndexTimestampPattern() {
+        return indexTimestampPattern;
+    }
+
+    public void setIndexTimestampPattern(String indexTimestampPattern) {
+        this.indexTimestampPattern = indexTimestampPattern;
+    }
+
+    public FileSize getCompressionBlockSize() {
+        return compressionBlockSize;
+    }
+
+    public void setCompressionBlockSize(FileSize compressionBlockSize) {
+        this.compressionBlockSize = compressionBlockSize;
+    }
+
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    public void setCompressionThreads(int compressionThreads) {
+        this.compressionThreads = compressionThreads;
+    }
+
+    public boolean isJmxMetrics() {
+        return jmxMetrics;
+    }
+
+    public void setJmxMetrics(boolean jmxMetrics) {
+        this.jmxMetrics = jmxMetrics;
+    }
+
+    public String getMetricsName() {
+        return metricsName;
+    }
+
+    public void setMetricsName(String metricsName) {
+        this.metricsName = metricsName;
+    }
+
+    public void addMetricsListener(UploadMetricsListener metricsListener) {
+        this.metricsListeners.add(metricsListener);
+    }
+}
@@ -0,0 +1,217 @@
+package ch.qos.logback.core.rolling.aws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+public class ActiveFileStreamer {
+
+    private final AmazonS3Client s3Client;
+    private final Supplier<String> activeFileName;
+    private final Supplier<String> objectFileName;
+    private final Supplier<Date> date;
+
+    private Stream current;
+    // Moves on every detach(), so a stream opened for a period that has rolled meanwhile is dropped.
+    private long generation;
+    // From detach() until resume() the file being rolled is not streamed again as the next one.
+    private boolean paused;
+
+    // The object is keyed like the rolled file's upload, from objectFileName and date, so a stream and the upload
+    // it falls back to land on the same key.
+    public ActiveFileStreamer(AmazonS3Client s3Client, Supplier<String> activeFileName, Supplier<String> objectFileName,
+                              Supplier<Date> date) {
+        this.s3Client = s3Client;
+        this.activeFileName = activeFileName;
+        this.objectFileName = objectFileName;
+        this.date = date;
+        this.current = null;
+        this.generation = 0;
+        this.paused = false;
+    }
+
+    // The monitor is only held to swap the current stream, detach() needs it on the logging thread during
+    // rollover, so network and disk work happen outside it.
+    public void ship() {
+        Stream stream;
+        long openedGeneration;
+        synchronized (this) {
+            if (this.paused) {
+                return;
+            }
+            stream = this.current;
+            openedGeneration = this.generation;
+        }
+
+        if (stream == null) {
+            File file = new File(this.activeFileName.get());
+            if (!file.exists()) {
+                return;
+            }
+            try {
+                stream = new Stream(file, this.objectFileName.get(), this.date.get());
+            } catch (Exception ex) {
+                this.s3Client.getStatus().addWarn("Could not start streaming " + file + " to S3", ex);
+                return;
+            }
+            synchronized (this) {
+                if (this.generation != openedGeneration || this.current != null) {
+                    stream.close();
+                    return;
+                }
+                this.current = stream;
+            }
+        }
+        stream.shipCompleteParts();
+    }
+
+    // Called from rollover(), while the appender is not writing, so the captured length is final. The returned
+    // task sends the tail and completes the object, or runs fallback, which uploads the rolled file as usual,
+    // when the stream failed at any point. Returns null when nothing was streamed. Nothing is streamed until
+    // resume(), called once the next file and its object name and date are in place.
+    public Runnable detach(final Runnable fallback) {
+        final Stream stream;
+        synchronized (this) {
+            stream = this.current;
+            this.current = null;
+            this.generation++;
+            this.paused = true;
+        }
+
+        if (stream == null) {
+            return null;
+        }
+
+        long size;
+        try {
+            size = stream.channel.size();
+        } catch (IOException ex) {
+            this.s3Client.getStatus().addWarn("Could not read the size of the streamed file for " + stream.key, ex);
+            size = -1;
+        }
+        final long length = size;
+        return () -> stream.finish(length, fallback);
+    }
+
+    public synchronized void resume() {
+        this.paused = false;
+    }
+
+    private class Stream {
+        private final FileChannel channel;
+        private final String key;
+        private final MultipartUpload upload;
+        private final int partSize;
+        // Serializes shipping, failing and finishing, which run on the streaming and the hand-off threads.
+        private final ReentrantLock lock;
+
+        private long offset;
+        private volatile boolean failed;
+
+        Stream(File file, String objectFileName, Date date) throws IOException {
+            // The channel keeps pointing at the same file after logback renames it at rollover.
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.key = s3Client.getS3ObjectName(objectFileName, date, false);
+            this.upload = s3Client.newMultipartUpload(this.key);
+            this.partSize = (int) Math.min(s3Client.getMultipartPartSize(), Integer.MAX_VALUE);
+            this.lock = new ReentrantLock();
+            this.offset = 0;
+            this.failed = false;
+        }
+
+        void shipCompleteParts() {
+            this.lock.lock();
+            try {
+                if (this.failed || !this.channel.isOpen()) {
+                    return;
+                }
+                while (this.channel.size() - this.offset >= this.partSize
+                        && this.upload.getPendingPartCount() < s3Client.getMultipartConcurrency()) {
+                    submit(this.partSize);
+                }
+            } catch (Exception ex) {
+                s3Client.getStatus().addWarn("Could not stream to " + this.key
+                        + ", the rolled file is uploaded instead", ex);
+                fail();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void finish(long length, Runnable fallback) {
+            this.lock.lock();
+            try {
+                if (this.failed || length < 0) {
+                    fail();
+                    fallback.run();
+                    return;
+                }
+
+                s3Client.getMetrics().uploadStarted();
+                long start = System.nanoTime();
+                try {
+                    while (length - this.offset > 0) {
+                        // Bounded like shipping, a large tail does not buffer every part in memory at once.
+                        this.upload.awaitPendingParts(s3Client.getMultipartConcurrency());
+                        submit((int) Math.min(this.partSize, length - this.offset));
+                    }
+                    if (this.upload.isStarted()) {
+                        this.upload.complete();
+                    }
+                    // Only the time to send the tail counts, the earlier parts were shipped while logging.
+                    s3Client.getMetrics().uploadCompleted(this.key, length, System.nanoTime() - start);
+                } catch (Exception ex) {
+                    s3Client.getStatus().addWarn("Could not complete the streamed object " + this.key
+                            + ", uploading the rolled file instead", ex);
+                    if (ex instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    s3Client.getMetrics().uploadAttemptFailed();
+                    fail();
+                    // The rolled file is still on disk, it goes up as a whole object with the usual retries.
+                    fallback.run();
+                }
+            } finally {
+                close();
+                this.lock.unlock();
+            }
+        }
+
+        void fail() {
+            if (this.failed) {
+                return;
+            }
+            this.failed = true;
+            this.upload.abort();
+        }
+
+        void close() {
+            try {
+                this.channel.close();
+            } catch (IOException ex) {
+                s3Client.getStatus().addWarn("Could not close the streamed file of " + this.key, ex);
+            }
+        }
+
+        private void submit(int length) throws IOException {
+            byte[] data = new byte[length];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                if (this.channel.read(buffer, this.offset + buffer.position()) < 0) {
+                    throw new IOException("Active log file was truncated while streaming");
+                }
+            }
+
+            if (!this.upload.isStarted()) {
+                this.upload.begin();
+            }
+            this.upload.submitPart(data, length);
+            this.offset += length;
+        }
+    }
+}
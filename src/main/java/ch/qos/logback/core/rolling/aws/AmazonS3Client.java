@@ -1,29 +1,71 @@
 package ch.qos.logback.core.rolling.aws;
 
-import ch.qos.logback.core.rolling.data.CustomData;
+import ch.qos.logback.core.rolling.batch.BatchFormat;
+import ch.qos.logback.core.rolling.batch.SegmentBatcher;
+import ch.qos.logback.core.rolling.helper.CompressionMode;
+import ch.qos.logback.core.rolling.executor.AdaptiveConcurrencyLimit;
+import ch.qos.logback.core.rolling.executor.AsyncTask;
+import ch.qos.logback.core.rolling.executor.DeferrableTask;
+import ch.qos.logback.core.rolling.executor.SpillFile;
+import ch.qos.logback.core.rolling.executor.SpillableTask;
+import ch.qos.logback.core.rolling.executor.UploadExecutor;
+import ch.qos.logback.core.rolling.executor.UploadOverflowPolicy;
+import ch.qos.logback.core.rolling.executor.UploadThreads;
+import ch.qos.logback.core.rolling.journal.UploadJournal;
+import ch.qos.logback.core.rolling.metrics.UploadMetrics;
 import ch.qos.logback.core.rolling.shutdown.RollingPolicyShutdownListener;
+import ch.qos.logback.core.rolling.shutdown.ShutdownCoordinator;
+import ch.qos.logback.core.rolling.io.UploadBodyMode;
+import ch.qos.logback.core.rolling.spool.SpoolOverflowPolicy;
+import ch.qos.logback.core.rolling.spool.UploadSpool;
+import ch.qos.logback.core.rolling.throttle.TokenBucket;
+import ch.qos.logback.core.rolling.throttle.UploadThrottle;
 import ch.qos.logback.core.rolling.util.IdentifierUtil;
-import com.amazonaws.auth.AWSCredentials;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.regions.Regions;
+import ch.qos.logback.core.spi.ContextAware;
+import ch.qos.logback.core.spi.ContextAwareBase;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.CannedAccessControlList;
-import com.amazonaws.services.s3.model.CreateBucketRequest;
-import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 
 import java.io.File;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 public class AmazonS3Client implements RollingPolicyShutdownListener {
 
+    public static final long DEFAULT_MULTIPART_PART_SIZE = 8L * 1024 * 1024;
+    public static final int DEFAULT_MULTIPART_CONCURRENCY = 4;
+    public static final int DEFAULT_UPLOAD_MAX_RETRIES = 5;
+    public static final long DEFAULT_BATCH_MAX_SIZE = 64L * 1024 * 1024;
+    public static final long DEFAULT_BATCH_MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    public static final long DEFAULT_UPLOAD_PRIORITY_MAX_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    public static final String SNAPSHOT_DIRECTORY = ".s3-uploads";
+
+    private static final long RETRY_BASE_DELAY_MILLIS = 1000;
+    private static final long RETRY_MAX_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    // How long a file may be overtaken by newer ones per byte: one second per megabyte.
+    private static final double PRIORITY_DELAY_NANOS_PER_BYTE = (double) TimeUnit.SECONDS.toNanos(1) / (1024 * 1024);
+
     private final String awsAccessKey;
     private final String awsSecretKey;
     private final String s3BucketName;
@@ -32,10 +74,56 @@ public class AmazonS3Client implements RollingPolicyShutdownListener {
     private final boolean prefixTimestamp;
     private final boolean prefixIdentifier;
 
-    private final String identifier;
+    private final UploadMetrics metrics;
+    private final Set<UploadTask> inFlight;
+    private final Set<UploadTask> waitingForRetry;
+
+    private S3KeyTemplate keyTemplate;
 
-    private ExecutorService executor;
-    private AmazonS3 amazonS3;
+    private String endpoint;
+    private String region;
+    private long multipartThreshold;
+    private long multipartPartSize;
+    private int multipartConcurrency;
+
+    private int uploadWorkers;
+    private boolean adaptiveUploadConcurrency;
+    private int maxUploadWorkers;
+    private boolean virtualThreads;
+    private int uploadQueueSize;
+    private long uploadPriorityMaxDelay;
+    private UploadOverflowPolicy uploadOverflowPolicy;
+    private File uploadSpillFile;
+    private File uploadJournalFile;
+    private int uploadMaxRetries;
+    private BatchFormat batchFormat;
+    private long batchMaxSize;
+    private long batchMaxAge;
+    private File batchDirectory;
+    private UploadBackend uploadBackend;
+    private long maxUploadBytesPerSecond;
+    private long uploadBurstSize;
+    private long maxProcessUploadBytesPerSecond;
+    private UploadBodyMode uploadBodyMode;
+    private boolean deleteAfterUpload;
+    private long spoolMaxSize;
+    private SpoolOverflowPolicy spoolOverflowPolicy;
+    private int keyShardCount;
+    private String keyShardPeriod;
+
+    private SharedS3Client shared;
+    private UploadThrottle throttle;
+    private FileBodies fileBodies;
+    private UploadExecutor executor;
+    private UploadJournal journal;
+    private SegmentBatcher batcher;
+    private UploadSpool spool;
+    private S3KeyShards keyShards;
+    private final Map<File, List<File>> batchSegments;
+    private final Set<File> sidecars;
+    private final AtomicLong snapshotSequence;
+    private volatile boolean shuttingDown;
+    private ContextAware status;
 
     public AmazonS3Client(String awsAccessKey, String awsSecretKey, String s3BucketName,
                           String s3FolderName, boolean prefixTimestamp, boolean prefixIdentifier) {
@@ -47,10 +135,173 @@ public class AmazonS3Client implements RollingPolicyShutdownListener {
         this.prefixTimestamp = prefixTimestamp;
         this.prefixIdentifier = prefixIdentifier;
 
-        this.executor = Executors.newFixedThreadPool(1);
-        this.amazonS3 = null;
+        this.endpoint = null;
+        this.region = null;
+        this.multipartThreshold = 0;
+        this.multipartPartSize = DEFAULT_MULTIPART_PART_SIZE;
+        this.multipartConcurrency = DEFAULT_MULTIPART_CONCURRENCY;
+
+        this.uploadWorkers = UploadExecutor.DEFAULT_WORKERS;
+        this.adaptiveUploadConcurrency = false;
+        this.maxUploadWorkers = AdaptiveConcurrencyLimit.DEFAULT_MAX_LIMIT;
+        this.virtualThreads = false;
+        this.uploadQueueSize = UploadExecutor.DEFAULT_QUEUE_SIZE;
+        this.uploadPriorityMaxDelay = DEFAULT_UPLOAD_PRIORITY_MAX_DELAY_MILLIS;
+        this.uploadOverflowPolicy = UploadOverflowPolicy.BLOCK;
+        this.uploadSpillFile = null;
+        this.uploadJournalFile = null;
+        this.uploadMaxRetries = DEFAULT_UPLOAD_MAX_RETRIES;
+        this.batchFormat = null;
+        this.batchMaxSize = DEFAULT_BATCH_MAX_SIZE;
+        this.batchMaxAge = DEFAULT_BATCH_MAX_AGE_MILLIS;
+        this.batchDirectory = null;
+        this.uploadBackend = new AmazonS3UploadBackend();
+        this.maxUploadBytesPerSecond = 0;
+        this.uploadBurstSize = 0;
+        this.maxProcessUploadBytesPerSecond = 0;
+        this.uploadBodyMode = UploadBodyMode.FILE;
+        this.deleteAfterUpload = false;
+        this.spoolMaxSize = 0;
+        this.spoolOverflowPolicy = SpoolOverflowPolicy.BLOCK;
+        this.keyShardCount = 0;
+        this.keyShardPeriod = S3KeyShards.DEFAULT_PERIOD;
 
-        this.identifier = prefixIdentifier ? IdentifierUtil.getIdentifier() : null;
+        this.shared = null;
+        this.throttle = null;
+        this.fileBodies = null;
+        this.executor = null;
+        this.journal = null;
+        this.batcher = null;
+        this.spool = null;
+        this.keyShards = null;
+        this.shuttingDown = false;
+
+        this.metrics = new UploadMetrics();
+        this.inFlight = ConcurrentHashMap.newKeySet();
+        this.waitingForRetry = ConcurrentHashMap.newKeySet();
+        this.batchSegments = new ConcurrentHashMap<>();
+        this.sidecars = ConcurrentHashMap.newKeySet();
+        this.snapshotSequence = new AtomicLong();
+        setStatus(new ContextAwareBase());
+    }
+
+    public void start() {
+        this.keyShards = getKeyShardCount() > 0 ? new S3KeyShards(getKeyShardCount(), getKeyShardPeriod()) : null;
+        this.keyTemplate = S3KeyTemplate.compile(getS3FolderName(), isPrefixTimestamp(), isPrefixIdentifier(),
+                this.keyShards);
+
+        // Clients for the same bucket, region and credentials share one connection pool and one set of threads.
+        // Clients on virtual threads get their own pool, so the setting never changes the threads of another.
+        this.shared = S3ClientRegistry.acquire(getEndpoint(), getRegion(), getAwsAccessKey(), getAwsSecretKey(),
+                getS3BucketName(), isVirtualThreads() && UploadThreads.isVirtualThreadsSupported());
+        this.shared.ensurePartConcurrency(getMultipartConcurrency());
+        // Without a burst size a bucket holds one second worth of bytes.
+        this.throttle = new UploadThrottle(getMaxUploadBytesPerSecond() <= 0 ? null
+                : new TokenBucket(getMaxUploadBytesPerSecond(),
+                getUploadBurstSize() > 0 ? getUploadBurstSize() : getMaxUploadBytesPerSecond()), this.metrics);
+        if (getMaxProcessUploadBytesPerSecond() > 0) {
+            UploadThrottle.limitProcess(this, getMaxProcessUploadBytesPerSecond(),
+                    getUploadBurstSize() > 0 ? getUploadBurstSize() : getMaxProcessUploadBytesPerSecond());
+        }
+        this.fileBodies = new FileBodies(getUploadBodyMode(), this.shared.getBufferPool());
+        this.uploadBackend.start(this);
+
+        // Opened before the executor drains the spill file, so the uploads it queues from there are completed in
+        // the journal. Those are read first, the journal does not queue them again.
+        if (getUploadJournalFile() != null) {
+            this.journal = new UploadJournal(getUploadJournalFile(), this.status);
+            try {
+                this.journal.open();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open upload journal " + getUploadJournalFile(), e);
+            }
+        }
+        final Set<String> spilledJournalIds = readSpilledJournalIds();
+        SpillFile spillFile = getUploadSpillFile() == null ? null : new SpillFile(getUploadSpillFile(), this.status);
+        // Adaptive concurrency starts at uploadWorkers and finds its own level between one and maxUploadWorkers.
+        AdaptiveConcurrencyLimit concurrencyLimit = isAdaptiveUploadConcurrency()
+                ? new AdaptiveConcurrencyLimit(getUploadWorkers(), 1, getMaxUploadWorkers()) : null;
+        this.executor = new UploadExecutor(this.shared.getWorkerPool(), getUploadWorkers(), concurrencyLimit,
+                getUploadQueueSize(), getUploadOverflowPolicy(), spillFile, this::decodeSpillEntry, this.status);
+        this.executor.setDropListener(task -> {
+            if (task instanceof HandOffTask) {
+                ((HandOffTask) task).drop();
+                this.metrics.uploadDropped(null);
+            } else if (task instanceof UploadTask) {
+                // The file stays on disk for logback's own retention, it no longer counts against the spool. A
+                // snapshot has no other use than this upload.
+                releaseSpooled(((UploadTask) task).file);
+                deleteSnapshot(((UploadTask) task).file);
+                this.metrics.uploadDropped(((UploadTask) task).key);
+            } else {
+                this.metrics.uploadDropped(null);
+            }
+        });
+        this.metrics.bindExecutor(this.executor);
+
+        if (isDeleteAfterUpload() || getSpoolMaxSize() > 0) {
+            this.spool = new UploadSpool(getSpoolMaxSize(), getSpoolOverflowPolicy(), this.metrics::uploadDropped,
+                    this::isUploading, this.status);
+            this.metrics.bindSpool(this.spool);
+        }
+
+        if (getBatchFormat() != null) {
+            File directory = getBatchDirectory() != null ? getBatchDirectory() : new File(".s3-batches");
+            this.batcher = new SegmentBatcher(getBatchFormat(), getBatchMaxSize(), getBatchMaxAge(), directory,
+                    this.shared.getRetryScheduler(), new BatchEnqueuer(), this.status);
+        }
+
+        if (this.journal != null) {
+            recoverPendingUploads(spilledJournalIds);
+        }
+    }
+
+    // The journal ids of the uploads spilled before a restart, which the executor queues from the spill file.
+    private Set<String> readSpilledJournalIds() {
+        if (getUploadSpillFile() == null || getUploadOverflowPolicy() != UploadOverflowPolicy.SPILL_TO_DISK) {
+            return Collections.emptySet();
+        }
+        Set<String> journalIds = new HashSet<>();
+        try {
+            for (String entry : SpillFile.readEntries(getUploadSpillFile())) {
+                String journalId = entry.substring(0, Math.max(entry.indexOf('\n'), 0));
+                if (!journalId.isEmpty()) {
+                    journalIds.add(journalId);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read upload spill file " + getUploadSpillFile(), e);
+        }
+        return journalIds;
+    }
+
+    // Entries that are also in the spill file are left to it, so no upload is queued twice after a restart.
+    private void recoverPendingUploads(Set<String> spilledJournalIds) {
+        final List<UploadJournal.Entry> pending = new ArrayList<>();
+        for (UploadJournal.Entry entry : this.journal.getPending()) {
+            if (!spilledJournalIds.contains(entry.getId())) {
+                pending.add(entry);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Re-enqueue off the caller's thread; the upload workers pick the entries up in parallel.
+        Thread recovery = UploadThreads.newThread(() -> {
+            for (UploadJournal.Entry entry : pending) {
+                try {
+                    File file = new File(entry.getPath());
+                    spool(file, entry.getKey());
+                    this.metrics.uploadQueued(entry.getKey(), file.length());
+                    this.executor.execute(new UploadTask(file, entry.getKey(), entry.getId(),
+                            toCompressionMode(entry.getCompression()), 0, true));
+                } catch (RejectedExecutionException ex) {
+                    return;
+                }
+            }
+        }, "s3-upload-recovery", true, this.shared.isVirtualThreads());
+        recovery.start();
     }
 
     public void uploadFileToS3Async(final String filename, final Date date) {
@@ -58,75 +309,403 @@ public class AmazonS3Client implements RollingPolicyShutdownListener {
     }
 
     public void uploadFileToS3Async(final String filename, final Date date, final boolean overrideTimestampSetting) {
-        if (this.amazonS3 == null) {
-            AWSCredentials credenciais = new BasicAWSCredentials(getAwsAccessKey(), getAwsSecretKey());
-            this.amazonS3 = AmazonS3ClientBuilder.standard()
-                    .withCredentials(new AWSStaticCredentialsProvider(credenciais))
-                    .withRegion(Regions.US_EAST_1)
-                    .build();
+        uploadFileToS3Async(filename, date, overrideTimestampSetting, CompressionMode.NONE);
+    }
 
-            if (!this.amazonS3.doesBucketExistV2(getS3BucketName())) {
-                this.amazonS3.createBucket(new CreateBucketRequest(getS3BucketName()));
-            }
-        }
+    public void uploadFileToS3Async(final String filename, final Date date, final boolean overrideTimestampSetting,
+                                    final CompressionMode compression) {
+        uploadFileToS3Async(filename, date, overrideTimestampSetting, compression, null);
+    }
 
+    // The sidecar, named after the file plus its own suffix, is uploaded next to the object under the object's
+    // key plus that suffix, and deleted locally once sent.
+    public void uploadFileToS3Async(final String filename, final Date date, final boolean overrideTimestampSetting,
+                                    final CompressionMode compression, final File sidecar) {
         final File file = new File(filename);
         if (!file.exists() || file.length() == 0) {
+            if (isSnapshot(file)) {
+                discardSnapshot(file);
+            }
             return;
         }
 
-        final StringBuilder s3ObjectName = new StringBuilder();
-        if (getS3FolderName() != null) {
-            s3ObjectName.append(format(getS3FolderName(), date)).append("/");
+        final String key = getS3ObjectName(file.getName(), date, overrideTimestampSetting)
+                + CompressingUpload.getSuffix(compression);
+
+        // The active file sent at shutdown stays where it is, only rolled files are spooled.
+        if (!overrideTimestampSetting) {
+            spool(file, key);
         }
 
-        if (CustomData.extraS3Folder.get() != null) {
-            s3ObjectName.append(CustomData.extraS3Folder.get()).append("/");
+        // The active file sent at shutdown, files compressed on the way and files with a sidecar are never batched.
+        if (this.batcher != null && !overrideTimestampSetting && compression == CompressionMode.NONE && sidecar == null) {
+            this.batcher.add(file, key, date, this.journal == null ? null : this.journal.append(key, file.getPath(), null).getId());
+            return;
         }
 
-        if (isPrefixTimestamp() || overrideTimestampSetting) {
-            s3ObjectName.append(new SimpleDateFormat("yyyyMMddHHmmss").format(date)).append("_");
+        enqueue(file, key, compression);
+        if (sidecar != null && sidecar.exists()) {
+            this.sidecars.add(sidecar);
+            enqueue(sidecar, key + sidecar.getName().substring(file.getName().length()), CompressionMode.NONE);
         }
+    }
 
-        if (isPrefixIdentifier()) {
-            s3ObjectName.append(this.identifier).append("_");
+    // Gives a rolled file whose name gets reused, like the minIndex file of a fixed window, a directory of its own
+    // under .s3-uploads next to it. Its upload, its spool entry and the delete after upload then stay with these
+    // bytes whatever later lands at the old path. The file is hard linked there, or copied where links are not
+    // supported, so it also stays where it is. The sidecar is moved along. The snapshot is deleted once uploaded.
+    public File snapshot(File file, File sidecar) throws IOException {
+        Path parent = file.getAbsoluteFile().toPath().getParent().resolve(SNAPSHOT_DIRECTORY);
+        Files.createDirectories(parent);
+        Path directory;
+        while (true) {
+            try {
+                directory = Files.createDirectory(parent.resolve(System.currentTimeMillis() + "-"
+                        + this.snapshotSequence.incrementAndGet()));
+                break;
+            } catch (FileAlreadyExistsException ex) {
+                // Left over from an earlier run that counted from the same millisecond, take the next number.
+            }
         }
 
-        s3ObjectName.append(file.getName());
+        Path snapshot = directory.resolve(file.getName());
+        try {
+            Files.createLink(snapshot, file.toPath());
+        } catch (IOException | UnsupportedOperationException ex) {
+            Files.copy(file.toPath(), snapshot, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        if (sidecar != null) {
+            Files.move(sidecar.toPath(), directory.resolve(sidecar.getName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return snapshot.toFile();
+    }
 
-        Runnable uploader = () -> {
-            try {
-                this.amazonS3.putObject(
-                        new PutObjectRequest(getS3BucketName(), s3ObjectName.toString(), file)
-                                .withCannedAcl(CannedAccessControlList.BucketOwnerFullControl));
-            } catch (Exception ex) {
-                ex.printStackTrace();
+    // Deletes a snapshot that is not going to be uploaded, with its sidecar and directory.
+    public void discardSnapshot(File snapshot) {
+        File directory = snapshot.getParentFile();
+        File[] files = directory.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            if (!file.delete()) {
+                this.status.addWarn("Could not delete snapshot " + file);
+            }
+        }
+        directory.delete();
+    }
+
+    private static boolean isSnapshot(File file) {
+        File directory = file.getParentFile();
+        return directory != null && directory.getParentFile() != null
+                && SNAPSHOT_DIRECTORY.equals(directory.getParentFile().getName());
+    }
+
+    // Snapshots only exist to be uploaded, the directory goes with the last file sent from it.
+    private void deleteSnapshot(File file) {
+        if (!isSnapshot(file)) {
+            return;
+        }
+        if (file.exists() && !file.delete()) {
+            this.status.addWarn("Could not delete snapshot " + file + " after uploading it");
+        }
+        file.getParentFile().delete();
+    }
+
+    private void spool(File file, String key) {
+        if (this.spool == null) {
+            return;
+        }
+        try {
+            this.spool.add(file, key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // In flight or waiting to retry, the spool must not delete it.
+    private boolean isUploading(File file) {
+        for (UploadTask task : this.inFlight) {
+            if (task.file.equals(file)) {
+                return true;
+            }
+        }
+        for (UploadTask task : this.waitingForRetry) {
+            if (task.file.equals(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Frees the spool space of an uploaded file, or of the segments in an uploaded batch.
+    private void releaseSpooled(File file) {
+        List<File> segments = this.batchSegments.remove(file);
+        if (this.spool == null) {
+            return;
+        }
+        if (segments == null) {
+            this.spool.release(file);
+            return;
+        }
+        for (File segment : segments) {
+            this.spool.release(segment);
+        }
+    }
+
+    // Once sent, a snapshot is deleted, as are the snapshots batched into an aggregate.
+    private void deleteSnapshots(File file) {
+        List<File> segments = this.batchSegments.get(file);
+        for (File sent : segments != null ? segments : Collections.singletonList(file)) {
+            deleteSnapshot(sent);
+        }
+    }
+
+    // Deletes the local copy once S3 holds the same bytes. A mismatch fails the attempt, so it is uploaded again.
+    private void deleteIfConfirmed(File file, String key, String eTag) {
+        List<File> segments = this.batchSegments.get(file);
+        if (segments == null && !this.spool.contains(file)) {
+            return;
+        }
+
+        S3ETag.Match match;
+        try {
+            match = S3ETag.check(eTag, file, getMultipartPartSize());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (match == S3ETag.Match.MISMATCH) {
+            throw new IllegalStateException("ETag " + eTag + " of " + key + " does not match " + file);
+        }
+        if (match == S3ETag.Match.UNKNOWN) {
+            this.status.addWarn("Could not check ETag " + eTag + " of " + key + " against " + file + ", keeping it");
+            return;
+        }
+
+        for (File confirmed : segments != null ? segments : Collections.singletonList(file)) {
+            if (confirmed.exists() && !confirmed.delete()) {
+                this.status.addWarn("Could not delete " + confirmed + " after its upload was confirmed");
             }
-        };
+        }
+    }
+
+    private void enqueue(final File file, final String key, final CompressionMode compression) {
+        final String journalId = this.journal == null ? null
+                : this.journal.append(key, file.getPath(), compression == CompressionMode.NONE ? null : compression.name()).getId();
+
+        this.metrics.uploadQueued(key, file.length());
+        submit(new UploadTask(file, key, journalId, compression, 0));
+    }
+
+    // Once shutdown has begun, new uploads are the final segments and go before the backlog. Uploads queued by a
+    // hand-off were admitted with it.
+    private void submit(Runnable task) {
+        if (this.shuttingDown) {
+            this.executor.executeFirst(task);
+        } else if (HandOffTask.isRunning()) {
+            this.executor.executeAdmitted(task);
+        } else {
+            this.executor.execute(task);
+        }
+    }
+
+    // Runs the last step of a rolling policy's pipeline, finishing a stream or queueing a compressed file, as a task
+    // of this client's upload executor. It takes a place in uploadQueueSize under uploadOverflowPolicy, and a drop
+    // counts in UploadsDropped. Completes once the task ran, or exceptionally when it was dropped or refused.
+    public CompletableFuture<Void> handOff(String fileName, Runnable task) {
+        HandOffTask handOff = new HandOffTask(fileName, task);
+        try {
+            submit(handOff);
+        } catch (RejectedExecutionException ex) {
+            handOff.done.completeExceptionally(ex);
+        }
+        return handOff.done;
+    }
+
+    public String getS3ObjectName(final String filename, final Date date, final boolean overrideTimestampSetting) {
+        return this.keyTemplate.build(filename, date, overrideTimestampSetting);
+    }
+
+    public MultipartUpload newMultipartUpload(final String key) {
+        return new MultipartUpload(getAmazonS3(), getPartExecutor(), getS3BucketName(), key, this.throttle,
+                this.fileBodies, this.status);
+    }
+
+    // Completes with the number of bytes sent.
+    private CompletableFuture<Long> upload(File file, String key, CompressionMode compression) {
+        try {
+            if (compression != CompressionMode.NONE) {
+                // Compressing on the way streams parts through the SDK v1 client, whatever the backend.
+                long bytes = CompressingUpload.uploadFile(this, key, file, compression);
+                // The compressed object is the archive, the raw rolled file is not kept.
+                if (!file.delete()) {
+                    this.status.addWarn("Could not delete " + file + " after uploading it to " + key);
+                }
+                return CompletableFuture.completedFuture(bytes);
+            }
+
+            long bytes = file.length();
+            CompletableFuture<String> sent = this.uploadBackend.upload(key, file);
+            if (!isDeleteAfterUpload()) {
+                return sent.thenApply(ignored -> bytes);
+            }
+            Function<String, Long> confirm = eTag -> {
+                deleteIfConfirmed(file, key, eTag);
+                return bytes;
+            };
+            // Hashing the file must not happen on an event-loop thread of a non-blocking backend.
+            return this.uploadBackend.isNonBlocking() ? sent.thenApplyAsync(confirm, getPartExecutor())
+                    : sent.thenApply(confirm);
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private void retry(final UploadTask task) {
+        int attempt = task.attempt + 1;
+        if (attempt > getUploadMaxRetries() || this.executor.isShutdown()) {
+            this.status.addError("Giving up uploading " + task.file + " to " + task.key + " after " + attempt
+                    + " attempts");
+            this.metrics.uploadFailed(task.key, attempt);
+            // The file stays on disk for logback's own retention, it no longer counts against the spool.
+            releaseSpooled(task.file);
+            sidecars.remove(task.file);
+            return;
+        }
+
+        // Equal jitter: half of the exponential backoff is always waited, a random share of the other half spreads
+        // retries from many hosts apart without letting any of them retry right away.
+        long backoff = Math.min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+        this.metrics.uploadRetry(task.key, attempt, delay);
+
+        this.waitingForRetry.add(task);
+        try {
+            this.shared.getRetryScheduler().schedule(() -> {
+                this.waitingForRetry.remove(task);
+                try {
+                    this.executor.execute(new UploadTask(task.file, task.key, task.journalId, task.compression, attempt));
+                } catch (RejectedExecutionException ex) {
+                    // Shutting down, the journal keeps the entry for the next start.
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // Shutting down, the journal keeps the entry for the next start.
+        }
+    }
+
+    private Runnable decodeSpillEntry(String entry) {
+        String[] fields = entry.split("\n", 4);
+        if (fields.length != 4) {
+            return null;
+        }
+        return new UploadTask(new File(fields[2]), fields[1], fields[0].isEmpty() ? null : fields[0],
+                toCompressionMode(fields[3]), 0);
+    }
 
-        this.executor.execute(uploader);
+    private static CompressionMode toCompressionMode(String compression) {
+        return compression == null || compression.isEmpty() ? CompressionMode.NONE : CompressionMode.valueOf(compression);
+    }
+
+    // Uploads queued from now on are final segments and overtake the backlog.
+    public void beginShutdown() {
+        this.shuttingDown = true;
+        if (this.spool != null) {
+            this.spool.stop();
+        }
     }
 
     @Override
     public void doShutdown() {
+        doShutdown(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ShutdownCoordinator.DEFAULT_TIMEOUT_MILLIS));
+    }
+
+    @Override
+    public List<String> doShutdown(long deadlineNanos) {
+        beginShutdown();
+        if (this.batcher != null) {
+            this.batcher.flush();
+        }
+
+        List<String> unflushed = new ArrayList<>();
+        this.executor.shutdown();
         try {
-            this.executor.shutdown();
-            this.executor.awaitTermination(10, TimeUnit.MINUTES);
+            if (!this.executor.awaitTermination(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                addUnflushed(unflushed, this.executor.shutdownNow(), "queued");
+            }
         } catch (InterruptedException e) {
-            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            addUnflushed(unflushed, this.executor.shutdownNow(), "queued");
+        }
+        addUnflushed(unflushed, this.inFlight, "in flight");
+        addUnflushed(unflushed, this.waitingForRetry, "waiting to retry");
+        if (this.executor.getSpilledTasks() > 0) {
+            unflushed.add(this.executor.getSpilledTasks() + " uploads spilled to " + getUploadSpillFile());
+        }
+
+        if (this.journal != null) {
+            this.journal.close();
         }
+
+        this.uploadBackend.stop();
+        UploadThrottle.releaseProcessLimit(this);
+        S3ClientRegistry.release(this.shared);
+        return unflushed;
     }
 
-    private String format(String s, Date date) {
-        Pattern pattern = Pattern.compile("%d\\{(.*?)}");
-        Matcher matcher = pattern.matcher(s);
-        while (matcher.find()) {
-            String match = matcher.group(1);
-            SimpleDateFormat simpleDateFormat = new SimpleDateFormat(match);
-            String replace = simpleDateFormat.format(date);
-            s = s.replace(String.format("%%d{%s}", match), replace);
+    private void addUnflushed(List<String> unflushed, Iterable<? extends Runnable> tasks, String state) {
+        String resumed = this.journal != null ? ", resumed on the next start" : "";
+        for (Runnable task : tasks) {
+            unflushed.add(task + " (" + state + resumed + ")");
         }
-        return s;
+    }
+
+    AmazonS3 getAmazonS3() {
+        return this.shared.getAmazonS3();
+    }
+
+    // Every key of the bucket starting with prefix, waits for the listing.
+    public List<String> listKeys(String prefix) {
+        List<String> keys = new ArrayList<>();
+        ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(getS3BucketName()).withPrefix(prefix);
+        ListObjectsV2Result result;
+        do {
+            result = getAmazonS3().listObjectsV2(request);
+            for (S3ObjectSummary summary : result.getObjectSummaries()) {
+                keys.add(summary.getKey());
+            }
+            request.setContinuationToken(result.getNextContinuationToken());
+        } while (result.isTruncated());
+        return keys;
+    }
+
+    public CompletableFuture<?> getWarmUp() {
+        return this.shared.getWarmUp();
+    }
+
+    public SharedS3Client getShared() {
+        return shared;
+    }
+
+    public UploadThrottle getThrottle() {
+        return throttle;
+    }
+
+    public FileBodies getFileBodies() {
+        return fileBodies;
+    }
+
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    public UploadExecutor getExecutor() {
+        return executor;
+    }
+
+    public UploadMetrics getMetrics() {
+        return metrics;
+    }
+
+    private ExecutorService getPartExecutor() {
+        return this.shared.getPartExecutor();
     }
 
     public String getAwsAccessKey() {
@@ -154,6 +733,422 @@ public class AmazonS3Client implements RollingPolicyShutdownListener {
     }
 
     public String getIdentifier() {
-        return identifier;
+        return isPrefixIdentifier() ? IdentifierUtil.getIdentifier() : null;
+    }
+
+    public CompletableFuture<String> getIdentifierAsync() {
+        return isPrefixIdentifier() ? IdentifierUtil.getIdentifierAsync() : CompletableFuture.completedFuture(null);
+    }
+
+    public ContextAware getStatus() {
+        return status;
+    }
+
+    // Where the client and everything it runs report, the status manager of the policy or appender it uploads for.
+    public void setStatus(ContextAware status) {
+        this.status = status;
+        this.metrics.setStatus(status);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public int getUploadWorkers() {
+        return uploadWorkers;
+    }
+
+    public void setUploadWorkers(int uploadWorkers) {
+        this.uploadWorkers = Math.max(uploadWorkers, 1);
+    }
+
+    public boolean isAdaptiveUploadConcurrency() {
+        return adaptiveUploadConcurrency;
+    }
+
+    public void setAdaptiveUploadConcurrency(boolean adaptiveUploadConcurrency) {
+        this.adaptiveUploadConcurrency = adaptiveUploadConcurrency;
+    }
+
+    public int getMaxUploadWorkers() {
+        return maxUploadWorkers;
+    }
+
+    public void setMaxUploadWorkers(int maxUploadWorkers) {
+        this.maxUploadWorkers = Math.max(maxUploadWorkers, 1);
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public long getUploadPriorityMaxDelay() {
+        return uploadPriorityMaxDelay;
+    }
+
+    public void setUploadPriorityMaxDelay(long uploadPriorityMaxDelay) {
+        this.uploadPriorityMaxDelay = Math.max(uploadPriorityMaxDelay, 0);
+    }
+
+    public int getUploadQueueSize() {
+        return uploadQueueSize;
+    }
+
+    public void setUploadQueueSize(int uploadQueueSize) {
+        this.uploadQueueSize = Math.max(uploadQueueSize, 1);
+    }
+
+    public UploadOverflowPolicy getUploadOverflowPolicy() {
+        return uploadOverflowPolicy;
+    }
+
+    public void setUploadOverflowPolicy(UploadOverflowPolicy uploadOverflowPolicy) {
+        this.uploadOverflowPolicy = uploadOverflowPolicy;
+    }
+
+    public File getUploadSpillFile() {
+        return uploadSpillFile;
+    }
+
+    public void setUploadSpillFile(File uploadSpillFile) {
+        this.uploadSpillFile = uploadSpillFile;
+    }
+
+    public File getUploadJournalFile() {
+        return uploadJournalFile;
+    }
+
+    public void setUploadJournalFile(File uploadJournalFile) {
+        this.uploadJournalFile = uploadJournalFile;
+    }
+
+    public int getUploadMaxRetries() {
+        return uploadMaxRetries;
+    }
+
+    public void setUploadMaxRetries(int uploadMaxRetries) {
+        this.uploadMaxRetries = Math.max(uploadMaxRetries, 0);
+    }
+
+    public long getMultipartThreshold() {
+        return multipartThreshold;
+    }
+
+    public void setMultipartThreshold(long multipartThreshold) {
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    public long getMultipartPartSize() {
+        return multipartPartSize;
+    }
+
+    public void setMultipartPartSize(long multipartPartSize) {
+        this.multipartPartSize = Math.max(multipartPartSize, MultipartUpload.MIN_PART_SIZE);
+    }
+
+    public int getMultipartConcurrency() {
+        return multipartConcurrency;
+    }
+
+    public void setMultipartConcurrency(int multipartConcurrency) {
+        this.multipartConcurrency = Math.max(multipartConcurrency, 1);
+    }
+
+    public UploadBackend getUploadBackend() {
+        return uploadBackend;
+    }
+
+    public void setUploadBackend(UploadBackend uploadBackend) {
+        this.uploadBackend = uploadBackend;
+    }
+
+    public long getMaxUploadBytesPerSecond() {
+        return maxUploadBytesPerSecond;
+    }
+
+    public void setMaxUploadBytesPerSecond(long maxUploadBytesPerSecond) {
+        this.maxUploadBytesPerSecond = Math.max(maxUploadBytesPerSecond, 0);
+    }
+
+    public long getUploadBurstSize() {
+        return uploadBurstSize;
+    }
+
+    public void setUploadBurstSize(long uploadBurstSize) {
+        this.uploadBurstSize = Math.max(uploadBurstSize, 0);
+    }
+
+    public UploadBodyMode getUploadBodyMode() {
+        return uploadBodyMode;
+    }
+
+    public void setUploadBodyMode(UploadBodyMode uploadBodyMode) {
+        this.uploadBodyMode = uploadBodyMode;
+    }
+
+    public boolean isDeleteAfterUpload() {
+        return deleteAfterUpload;
+    }
+
+    public void setDeleteAfterUpload(boolean deleteAfterUpload) {
+        this.deleteAfterUpload = deleteAfterUpload;
+    }
+
+    public long getSpoolMaxSize() {
+        return spoolMaxSize;
+    }
+
+    public void setSpoolMaxSize(long spoolMaxSize) {
+        this.spoolMaxSize = Math.max(spoolMaxSize, 0);
+    }
+
+    public SpoolOverflowPolicy getSpoolOverflowPolicy() {
+        return spoolOverflowPolicy;
+    }
+
+    public void setSpoolOverflowPolicy(SpoolOverflowPolicy spoolOverflowPolicy) {
+        this.spoolOverflowPolicy = spoolOverflowPolicy;
+    }
+
+    public UploadSpool getSpool() {
+        return spool;
+    }
+
+    public int getKeyShardCount() {
+        return keyShardCount;
+    }
+
+    public void setKeyShardCount(int keyShardCount) {
+        this.keyShardCount = Math.max(keyShardCount, 0);
+    }
+
+    public String getKeyShardPeriod() {
+        return keyShardPeriod;
+    }
+
+    public void setKeyShardPeriod(String keyShardPeriod) {
+        this.keyShardPeriod = keyShardPeriod;
+    }
+
+    public S3KeyShards getKeyShards() {
+        return keyShards;
+    }
+
+    public long getMaxProcessUploadBytesPerSecond() {
+        return maxProcessUploadBytesPerSecond;
+    }
+
+    public void setMaxProcessUploadBytesPerSecond(long maxProcessUploadBytesPerSecond) {
+        this.maxProcessUploadBytesPerSecond = Math.max(maxProcessUploadBytesPerSecond, 0);
+    }
+
+    public BatchFormat getBatchFormat() {
+        return batchFormat;
+    }
+
+    public void setBatchFormat(BatchFormat batchFormat) {
+        this.batchFormat = batchFormat;
+    }
+
+    public long getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public void setBatchMaxSize(long batchMaxSize) {
+        this.batchMaxSize = Math.max(batchMaxSize, 1);
+    }
+
+    public long getBatchMaxAge() {
+        return batchMaxAge;
+    }
+
+    public void setBatchMaxAge(long batchMaxAge) {
+        this.batchMaxAge = Math.max(batchMaxAge, 0);
+    }
+
+    public File getBatchDirectory() {
+        return batchDirectory;
+    }
+
+    public void setBatchDirectory(File batchDirectory) {
+        this.batchDirectory = batchDirectory;
+    }
+
+    private class BatchEnqueuer implements SegmentBatcher.BatchUploader {
+
+        @Override
+        public void uploadBatch(File batch, File manifest, Date date, List<String> journalIds, List<File> segments) {
+            String key = getS3ObjectName(batch.getName(), date, false);
+            batchSegments.put(batch, segments);
+            enqueue(batch, key, CompressionMode.NONE);
+            enqueue(manifest, key + SegmentBatcher.MANIFEST_SUFFIX, CompressionMode.NONE);
+
+            // The batch is journaled now, it replaces the entries of its segments.
+            if (journal != null) {
+                for (String journalId : journalIds) {
+                    journal.complete(journalId);
+                }
+            }
+        }
+
+        @Override
+        public void uploadSegment(File segment, String key, String journalId) {
+            metrics.uploadQueued(key, segment.length());
+            submit(new UploadTask(segment, key, journalId, CompressionMode.NONE, 0));
+        }
+    }
+
+    private static class HandOffTask implements Runnable {
+        private static final ThreadLocal<Boolean> RUNNING = ThreadLocal.withInitial(() -> false);
+
+        private final String fileName;
+        private final Runnable task;
+        private final CompletableFuture<Void> done;
+
+        HandOffTask(final String fileName, final Runnable task) {
+            this.fileName = fileName;
+            this.task = task;
+            this.done = new CompletableFuture<>();
+        }
+
+        static boolean isRunning() {
+            return RUNNING.get();
+        }
+
+        @Override
+        public void run() {
+            RUNNING.set(true);
+            try {
+                this.task.run();
+                this.done.complete(null);
+            } catch (Throwable t) {
+                this.done.completeExceptionally(t);
+            } finally {
+                RUNNING.set(false);
+            }
+        }
+
+        void drop() {
+            this.done.completeExceptionally(new RejectedExecutionException("Upload queue is full, dropped " + this));
+        }
+
+        @Override
+        public String toString() {
+            return "hand-off of " + this.fileName;
+        }
+    }
+
+    private class UploadTask implements SpillableTask, AsyncTask, DeferrableTask {
+        private final File file;
+        private final String key;
+        private final String journalId;
+        private final CompressionMode compression;
+        private final int attempt;
+        private final boolean backlog;
+
+        UploadTask(final File file, final String key, final String journalId, final CompressionMode compression,
+                   final int attempt) {
+            this(file, key, journalId, compression, attempt, attempt > 0);
+        }
+
+        // Backlog are retries and uploads left over from before a restart.
+        UploadTask(final File file, final String key, final String journalId, final CompressionMode compression,
+                   final int attempt, final boolean backlog) {
+            this.file = file;
+            this.key = key;
+            this.journalId = journalId;
+            this.compression = compression;
+            this.attempt = attempt;
+            this.backlog = backlog;
+        }
+
+        // Freshly rolled small files go first: big files make way for up to uploadPriorityMaxDelay, the backlog
+        // for all of it. Nothing waits longer, so old files keep moving whatever arrives after them.
+        @Override
+        public long getDeferNanos() {
+            long maxDelay = TimeUnit.MILLISECONDS.toNanos(getUploadPriorityMaxDelay());
+            if (this.backlog) {
+                return maxDelay;
+            }
+            return Math.min(maxDelay, (long) (this.file.length() * PRIORITY_DELAY_NANOS_PER_BYTE));
+        }
+
+        @Override
+        public CompletableFuture<?> runAsync() {
+            if (!this.file.exists()) {
+                // Dropped by the spool, which counted it, or deleted by something else before its turn.
+                status.addWarn(this.file + " no longer exists, it is not uploaded to " + this.key);
+                if (spool == null || spool.release(this.file)) {
+                    metrics.uploadDropped(this.key);
+                }
+                sidecars.remove(this.file);
+                deleteSnapshot(this.file);
+                if (journal != null) {
+                    journal.complete(this.journalId);
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+
+            metrics.uploadStarted();
+            inFlight.add(this);
+            long start = System.nanoTime();
+            return upload(this.file, this.key, this.compression).handle((bytes, ex) -> {
+                inFlight.remove(this);
+                AdaptiveConcurrencyLimit concurrencyLimit = executor.getConcurrencyLimit();
+                if (ex == null) {
+                    long latency = System.nanoTime() - start;
+                    metrics.uploadCompleted(this.key, bytes, latency);
+                    if (concurrencyLimit != null) {
+                        concurrencyLimit.onSuccess(bytes, latency, executor.getActiveCount());
+                    }
+                    deleteSnapshots(this.file);
+                    releaseSpooled(this.file);
+                    if (batcher != null && batcher.owns(this.file) && !this.file.delete()) {
+                        status.addWarn("Could not delete batch file " + this.file + " after uploading it");
+                    }
+                    if (sidecars.remove(this.file) && this.file.exists() && !this.file.delete()) {
+                        status.addWarn("Could not delete sidecar " + this.file + " after uploading it");
+                    }
+                    if (journal != null) {
+                        journal.complete(this.journalId);
+                    }
+                } else {
+                    status.addWarn("Could not upload " + this + ", attempt " + (this.attempt + 1), ex);
+                    metrics.uploadAttemptFailed();
+                    if (concurrencyLimit != null && uploadBackend.isThrottling(ex)) {
+                        concurrencyLimit.onThrottled();
+                    }
+                    retry(this);
+                }
+                return null;
+            });
+        }
+
+        @Override
+        public String toString() {
+            return this.file + " to " + this.key;
+        }
+
+        @Override
+        public String toSpillEntry() {
+            return (this.journalId == null ? "" : this.journalId) + '\n' + this.key + '\n' + this.file.getPath()
+                    + '\n' + this.compression.name();
+        }
     }
 }
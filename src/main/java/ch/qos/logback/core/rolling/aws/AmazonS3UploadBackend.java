@@ -0,0 +1,64 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.throttle.UploadThrottle;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+// The default backend: the shared SDK v1 client, blocking the upload worker until the file is sent.
+public class AmazonS3UploadBackend implements UploadBackend {
+
+    private AmazonS3Client client;
+
+    @Override
+    public void start(AmazonS3Client client) {
+        this.client = client;
+    }
+
+    @Override
+    public CompletableFuture<String> upload(String key, File file) {
+        try {
+            SharedS3Client shared = this.client.getShared();
+            UploadThrottle throttle = this.client.getThrottle();
+            FileBodies bodies = this.client.getFileBodies();
+            long threshold = this.client.getMultipartThreshold();
+            String eTag;
+            if (threshold > 0 && file.length() >= threshold) {
+                eTag = MultipartUpload.uploadFile(shared.getAmazonS3(), shared.getPartExecutor(),
+                        this.client.getS3BucketName(), key, file, this.client.getMultipartPartSize(),
+                        this.client.getMultipartConcurrency(), throttle, bodies, this.client.getStatus());
+            } else if (throttle.isActive() || bodies.isStreamed()) {
+                long length = file.length();
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(length);
+                try (InputStream body = bodies.open(file, 0, length)) {
+                    eTag = shared.getAmazonS3().putObject(
+                            new PutObjectRequest(this.client.getS3BucketName(), key,
+                                    throttle.isActive() ? throttle.wrap(body) : body, metadata)
+                                    .withCannedAcl(CannedAccessControlList.BucketOwnerFullControl)).getETag();
+                }
+            } else {
+                eTag = shared.getAmazonS3().putObject(
+                        new PutObjectRequest(this.client.getS3BucketName(), key, file)
+                                .withCannedAcl(CannedAccessControlList.BucketOwnerFullControl)).getETag();
+            }
+            return CompletableFuture.completedFuture(eTag);
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return false;
+    }
+
+    @Override
+    public void stop() {
+        // The shared client is released by AmazonS3Client.
+    }
+}
@@ -0,0 +1,304 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.compress.BlockCompressor;
+import ch.qos.logback.core.rolling.compress.CompressionCodec;
+import ch.qos.logback.core.rolling.io.BlockRing;
+import ch.qos.logback.core.rolling.metrics.UploadMetrics;
+import ch.qos.logback.core.spi.ContextAware;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Drains the sealed blocks of a ring in order: every block is compressed on its own, the results are gathered
+// into multipart parts and the object is completed at its last block. Runs on one thread per appender.
+// A part keeps its bytes until S3 has it, so a part that failed, or an object that could not be started, is sent
+// again up to uploadMaxRetries times while the ring buffers the blocks behind it.
+public class BlockShipper implements Runnable {
+
+    private static final long POLL_MILLIS = 100;
+    private static final long RETRY_BASE_DELAY_MILLIS = 1000;
+    private static final long RETRY_MAX_DELAY_MILLIS = 30000;
+
+    private final AmazonS3Client s3Client;
+    private final ContextAware status;
+    private final BlockRing ring;
+    private final ObjectNamer namer;
+    private final BlockCompressor compressor;
+    private final int partSize;
+    private final byte[] scratch;
+
+    private volatile boolean stopping;
+    private volatile String currentKey;
+
+    private final Map<Integer, Part> unsent;
+
+    private MultipartUpload upload;
+    private String failedObject;
+    private byte[] part;
+    private int partLength;
+    private long bytesIn;
+    private long bytesOut;
+    private long compressionNanos;
+    private long start;
+
+    public BlockShipper(AmazonS3Client s3Client, ContextAware status, BlockRing ring, ObjectNamer namer,
+                        CompressionCodec codec) {
+        this.s3Client = s3Client;
+        this.status = status;
+        this.ring = ring;
+        this.namer = namer;
+        this.compressor = codec == null ? null : codec.newBlockCompressor();
+        this.partSize = (int) Math.min(Math.max(s3Client.getMultipartPartSize(), MultipartUpload.MIN_PART_SIZE),
+                Integer.MAX_VALUE - 2L * ring.getBlockSize());
+        this.scratch = new byte[ring.getBlockSize()];
+        this.unsent = new TreeMap<>();
+        this.stopping = false;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!this.stopping || this.ring.getSealedBlocks() > 0) {
+                BlockRing.Block block = this.ring.take(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (block != null) {
+                    ship(block);
+                }
+            }
+        } catch (InterruptedException e) {
+            if (this.upload != null) {
+                this.status.addWarn("Aborting the upload to " + this.currentKey + " at the shutdown deadline");
+                fail(this.currentKey);
+            }
+            dropSealedBlocks();
+        }
+    }
+
+    // The blocks still waiting at the shutdown deadline are lost, every object they belong to counts as dropped.
+    private void dropSealedBlocks() {
+        Set<String> objects = new LinkedHashSet<>();
+        int blocks = 0;
+        long bytes = 0;
+        BlockRing.Block block;
+        while ((block = this.ring.poll()) != null) {
+            String objectName = this.namer.name(block.getDate(), block.getIndex());
+            if (!objectName.equals(this.failedObject)) {
+                objects.add(objectName);
+            }
+            blocks++;
+            bytes += block.getBuffer().position();
+            this.ring.release(block);
+        }
+        if (blocks == 0) {
+            return;
+        }
+        for (String objectName : objects) {
+            this.s3Client.getMetrics().uploadDropped(objectName);
+        }
+        this.status.addError("Dropped " + blocks + " blocks, " + bytes + " bytes, not streamed to S3 by the shutdown"
+                + " deadline: " + objects);
+    }
+
+    // The shipper exits once the blocks sealed so far are uploaded.
+    public void stop() {
+        this.stopping = true;
+    }
+
+    public String getCurrentKey() {
+        return currentKey;
+    }
+
+    private void ship(BlockRing.Block block) throws InterruptedException {
+        Date date = block.getDate();
+        String objectName = this.namer.name(date, block.getIndex());
+        boolean last = block.isLast();
+
+        // The block goes back to the appender as soon as its content is copied out.
+        ByteBuffer buffer = block.getBuffer();
+        int length = buffer.position();
+        buffer.flip();
+        buffer.get(this.scratch, 0, length);
+        this.ring.release(block);
+
+        if (objectName.equals(this.failedObject)) {
+            if (last) {
+                this.failedObject = null;
+            }
+            return;
+        }
+
+        try {
+            if (this.upload == null) {
+                open(s3Client.getS3ObjectName(objectName, date, false));
+            }
+
+            this.bytesIn += length;
+            if (this.compressor == null) {
+                append(this.scratch, length);
+            } else if (length > 0) {
+                long compressStart = System.nanoTime();
+                byte[] compressed = this.compressor.compress(this.scratch, length);
+                this.compressionNanos += System.nanoTime() - compressStart;
+                append(compressed, compressed.length);
+            }
+
+            if (this.partLength >= this.partSize) {
+                submitPart();
+                awaitParts(this.s3Client.getMultipartConcurrency());
+            }
+            if (last) {
+                complete(objectName);
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            this.status.addError("Could not stream " + objectName + " to S3", e);
+            fail(this.currentKey);
+            if (!last) {
+                this.failedObject = objectName;
+            }
+        }
+    }
+
+    // The object is only started with its first part, so a failure to start it is retried like a part.
+    private void open(String key) {
+        this.currentKey = key;
+        this.upload = this.s3Client.newMultipartUpload(key);
+        this.part = new byte[this.partSize + 2 * this.ring.getBlockSize()];
+        this.partLength = 0;
+        this.bytesIn = 0;
+        this.bytesOut = 0;
+        this.compressionNanos = 0;
+        this.start = System.nanoTime();
+        this.s3Client.getMetrics().uploadStarted();
+    }
+
+    private void begin() throws InterruptedException {
+        for (int attempt = 1; !this.upload.isStarted(); attempt++) {
+            try {
+                this.upload.begin();
+            } catch (RuntimeException e) {
+                if (attempt > this.s3Client.getUploadMaxRetries()) {
+                    throw e;
+                }
+                this.status.addWarn("Could not start the upload to " + this.currentKey + ", attempt " + attempt, e);
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void append(byte[] data, int length) {
+        if (this.partLength + length > this.part.length) {
+            this.part = Arrays.copyOf(this.part, Math.max(this.part.length * 2, this.partLength + length));
+        }
+        System.arraycopy(data, 0, this.part, this.partLength, length);
+        this.partLength += length;
+    }
+
+    // The upload keeps the array until the part is sent, so the next part gets a new one.
+    private void submitPart() throws InterruptedException {
+        begin();
+        int partNumber = this.upload.submitPart(this.part, this.partLength);
+        this.unsent.put(partNumber, new Part(this.part, this.partLength));
+        this.bytesOut += this.partLength;
+        this.part = new byte[this.part.length];
+        this.partLength = 0;
+    }
+
+    private void complete(String objectName) throws Exception {
+        // An object is at least one part, S3 accepts a last part of any size.
+        if (this.partLength > 0 || this.upload.getPartCount() == 0) {
+            submitPart();
+        }
+        awaitParts(1);
+        this.upload.complete();
+
+        UploadMetrics metrics = this.s3Client.getMetrics();
+        if (this.compressor != null) {
+            metrics.compressionCompleted(objectName, this.bytesIn, this.bytesOut, this.compressionNanos);
+        }
+        metrics.uploadCompleted(this.currentKey, this.bytesOut, System.nanoTime() - this.start);
+        reset();
+    }
+
+    // Waits until at most maxPending parts are in flight, sending failed parts again from the bytes kept for them.
+    private void awaitParts(int maxPending) throws InterruptedException, IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                this.upload.awaitPendingParts(maxPending);
+            } catch (ExecutionException e) {
+                // Found again below, with every other part that failed so far.
+            }
+
+            boolean failed = false;
+            for (Iterator<Map.Entry<Integer, Part>> parts = this.unsent.entrySet().iterator(); parts.hasNext(); ) {
+                int partNumber = parts.next().getKey();
+                if (this.upload.isPartSent(partNumber)) {
+                    parts.remove();
+                } else if (this.upload.isPartFailed(partNumber)) {
+                    failed = true;
+                }
+            }
+            if (!failed) {
+                return;
+            }
+            if (attempt > this.s3Client.getUploadMaxRetries()) {
+                throw new IOException("Parts of " + this.currentKey + " failed " + attempt + " times");
+            }
+
+            backOff(attempt);
+            for (Map.Entry<Integer, Part> part : this.unsent.entrySet()) {
+                if (this.upload.isPartFailed(part.getKey())) {
+                    this.upload.resubmitPart(part.getKey(), part.getValue().data, part.getValue().length);
+                }
+            }
+        }
+    }
+
+    private void backOff(int attempt) throws InterruptedException {
+        long delay = Math.min(RETRY_MAX_DELAY_MILLIS, RETRY_BASE_DELAY_MILLIS << Math.min(attempt - 1, 20));
+        this.s3Client.getMetrics().uploadRetry(this.currentKey, attempt, delay);
+        Thread.sleep(delay);
+    }
+
+    private void fail(String key) {
+        if (this.upload != null) {
+            this.upload.abort();
+            this.s3Client.getMetrics().uploadAttemptFailed();
+            this.s3Client.getMetrics().uploadFailed(key, 1);
+        }
+        reset();
+    }
+
+    private void reset() {
+        this.upload = null;
+        this.part = null;
+        this.partLength = 0;
+        this.currentKey = null;
+        this.unsent.clear();
+    }
+
+    // Names the object of a block from the date and %i the appender sealed it with.
+    public interface ObjectNamer {
+
+        String name(Date date, int index);
+    }
+
+    private static class Part {
+        private final byte[] data;
+        private final int length;
+
+        Part(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.helper.CompressionMode;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class CompressingUpload {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CompressingUpload() {
+    }
+
+    public static String getSuffix(CompressionMode compressionMode) {
+        switch (compressionMode) {
+            case GZ:
+                return ".gz";
+            case ZIP:
+                return ".zip";
+            case NONE:
+            default:
+                return "";
+        }
+    }
+
+    // Returns the compressed size.
+    public static long uploadFile(AmazonS3Client s3Client, String key, File file,
+                                  CompressionMode compressionMode) throws Exception {
+        PartOutputStream parts = new PartOutputStream(s3Client, key);
+        try {
+            try (InputStream in = Files.newInputStream(file.toPath());
+                 OutputStream out = compress(parts, file.getName(), compressionMode)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
+                }
+            }
+            return parts.finish();
+        } catch (Exception ex) {
+            parts.abort();
+            throw ex;
+        }
+    }
+
+    private static OutputStream compress(OutputStream out, String entryName, CompressionMode compressionMode) throws IOException {
+        switch (compressionMode) {
+            case GZ:
+                return new GZIPOutputStream(out, BUFFER_SIZE);
+            case ZIP:
+                ZipOutputStream zip = new ZipOutputStream(out);
+                zip.putNextEntry(new ZipEntry(entryName));
+                return zip;
+            case NONE:
+            default:
+                return out;
+        }
+    }
+
+    // Cuts the compressed stream into parts. Objects that fit in a single part are sent with one PUT instead.
+    private static class PartOutputStream extends OutputStream {
+        private final AmazonS3Client s3Client;
+        private final String key;
+        private final int partSize;
+
+        private byte[] buffer;
+        private int count;
+        private long total;
+        private MultipartUpload upload;
+
+        PartOutputStream(AmazonS3Client s3Client, String key) {
+            this.s3Client = s3Client;
+            this.key = key;
+            this.partSize = (int) Math.min(s3Client.getMultipartPartSize(), Integer.MAX_VALUE);
+            this.buffer = new byte[this.partSize];
+            this.count = 0;
+            this.total = 0;
+            this.upload = null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (this.count == this.partSize) {
+                flushPart();
+            }
+            this.buffer[this.count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (this.count == this.partSize) {
+                    flushPart();
+                }
+                int chunk = Math.min(len, this.partSize - this.count);
+                System.arraycopy(b, off, this.buffer, this.count, chunk);
+                this.count += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        long finish() throws Exception {
+            this.total += this.count;
+            if (this.upload == null) {
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(this.count);
+
+                AmazonS3 amazonS3 = this.s3Client.getAmazonS3();
+                amazonS3.putObject(new PutObjectRequest(this.s3Client.getS3BucketName(), this.key,
+                        this.s3Client.getThrottle().wrap(new ByteArrayInputStream(this.buffer, 0, this.count)), metadata)
+                        .withCannedAcl(CannedAccessControlList.BucketOwnerFullControl));
+                return this.total;
+            }
+
+            if (this.count > 0) {
+                this.upload.submitPart(this.buffer, this.count);
+            }
+            this.upload.complete();
+            return this.total;
+        }
+
+        void abort() {
+            if (this.upload != null) {
+                this.upload.abort();
+            }
+        }
+
+        private void flushPart() throws IOException {
+            try {
+                if (this.upload == null) {
+                    this.upload = this.s3Client.newMultipartUpload(this.key);
+                    this.upload.begin();
+                }
+                // Bounds the memory held by compressed parts that are still in flight.
+                this.upload.awaitPendingParts(this.s3Client.getMultipartConcurrency());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for part uploads", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Part upload failed", e.getCause());
+            }
+
+            this.upload.submitPart(this.buffer, this.count);
+            this.total += this.count;
+            this.buffer = new byte[this.partSize];
+            this.count = 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.io.DirectBufferPool;
+import ch.qos.logback.core.rolling.io.FileChannelInputStream;
+import ch.qos.logback.core.rolling.io.UploadBodyMode;
+import com.amazonaws.internal.ResettableInputStream;
+import com.amazonaws.services.s3.internal.InputSubstream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Opens the request body for a file, or a part of it, according to uploadBodyMode.
+public class FileBodies {
+
+    private final UploadBodyMode mode;
+    private final DirectBufferPool pool;
+
+    public FileBodies(UploadBodyMode mode, DirectBufferPool pool) {
+        this.mode = mode;
+        this.pool = pool;
+    }
+
+    // Whether requests should carry a stream from open() rather than the File, which the SDK reads itself.
+    public boolean isStreamed() {
+        return this.mode != UploadBodyMode.FILE;
+    }
+
+    public InputStream open(File file, long offset, long length) throws IOException {
+        switch (this.mode) {
+            case DIRECT:
+                return FileChannelInputStream.direct(file, offset, length, this.pool);
+            case MAPPED:
+                return FileChannelInputStream.mapped(file, offset, length);
+            case FILE:
+            default:
+                return new InputSubstream(ResettableInputStream.newResettableInputStream(file), offset, length, true);
+        }
+    }
+
+    public UploadBodyMode getMode() {
+        return mode;
+    }
+}
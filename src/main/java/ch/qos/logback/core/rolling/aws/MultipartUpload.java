@@ -0,0 +1,246 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.io.UploadBodyMode;
+import ch.qos.logback.core.rolling.throttle.UploadThrottle;
+import ch.qos.logback.core.spi.ContextAware;
+import ch.qos.logback.core.spi.ContextAwareBase;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+public class MultipartUpload {
+
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private static final int MAX_PART_ATTEMPTS = 3;
+    private static final long PART_RETRY_DELAY_MILLIS = 500;
+
+    private final AmazonS3 amazonS3;
+    private final ExecutorService partExecutor;
+    private final String bucketName;
+    private final String key;
+    private final UploadThrottle throttle;
+    private final FileBodies bodies;
+    private final ContextAware status;
+
+    private final List<Future<PartETag>> parts;
+
+    private String uploadId;
+
+    public MultipartUpload(AmazonS3 amazonS3, ExecutorService partExecutor, String bucketName, String key) {
+        this(amazonS3, partExecutor, bucketName, key, null, new FileBodies(UploadBodyMode.FILE, null),
+                new ContextAwareBase());
+    }
+
+    public MultipartUpload(AmazonS3 amazonS3, ExecutorService partExecutor, String bucketName, String key,
+                           UploadThrottle throttle, FileBodies bodies, ContextAware status) {
+        this.amazonS3 = amazonS3;
+        this.partExecutor = partExecutor;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.throttle = throttle;
+        this.bodies = bodies;
+        this.status = status;
+        this.parts = new ArrayList<>();
+    }
+
+    // At most maxPendingParts parts of the file are in flight, however large the shared part pool has grown.
+    public static String uploadFile(AmazonS3 amazonS3, ExecutorService partExecutor, String bucketName, String key,
+                                  File file, long partSize, int maxPendingParts, UploadThrottle throttle,
+                                  FileBodies bodies, ContextAware status) throws Exception {
+        MultipartUpload upload = new MultipartUpload(amazonS3, partExecutor, bucketName, key, throttle, bodies,
+                status);
+        upload.begin();
+        try {
+            long length = file.length();
+            for (long offset = 0; offset < length; offset += partSize) {
+                upload.awaitPendingParts(maxPendingParts);
+                upload.submitPart(file, offset, Math.min(partSize, length - offset));
+            }
+            return upload.complete();
+        } catch (Exception ex) {
+            upload.abort();
+            throw ex;
+        }
+    }
+
+    public void begin() {
+        this.uploadId = this.amazonS3.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(this.bucketName, this.key)
+                        .withCannedACL(CannedAccessControlList.BucketOwnerFullControl))
+                .getUploadId();
+    }
+
+    public int submitPart(final File file, final long offset, final long size) {
+        final int partNumber = this.parts.size() + 1;
+        this.parts.add(this.partExecutor.submit(() -> uploadPart(() -> {
+            UploadPartRequest request = new UploadPartRequest()
+                    .withPartSize(size)
+                    .withPartNumber(partNumber);
+            if (isThrottled() || isStreamed()) {
+                InputStream body = openPart(file, offset, size);
+                return request.withInputStream(isThrottled() ? this.throttle.wrap(body) : body);
+            }
+            return request.withFile(file).withFileOffset(offset);
+        })));
+        return partNumber;
+    }
+
+    public int submitPart(final byte[] data, final int length) {
+        final int partNumber = this.parts.size() + 1;
+        this.parts.add(submitBytes(partNumber, data, length));
+        return partNumber;
+    }
+
+    // Sends a part again under its number once its own attempts have failed, S3 keeps the last upload of a number.
+    public void resubmitPart(final int partNumber, final byte[] data, final int length) {
+        this.parts.set(partNumber - 1, submitBytes(partNumber, data, length));
+    }
+
+    // Whether the part is done and sent, false while it is pending or after it failed.
+    public boolean isPartSent(int partNumber) {
+        Future<PartETag> part = this.parts.get(partNumber - 1);
+        if (!part.isDone() || part.isCancelled()) {
+            return false;
+        }
+        try {
+            part.get();
+            return true;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    public boolean isPartFailed(int partNumber) {
+        Future<PartETag> part = this.parts.get(partNumber - 1);
+        return part.isDone() && !isPartSent(partNumber);
+    }
+
+    private Future<PartETag> submitBytes(final int partNumber, final byte[] data, final int length) {
+        return this.partExecutor.submit(() -> uploadPart(() -> new UploadPartRequest()
+                .withInputStream(isThrottled() ? this.throttle.wrap(new ByteArrayInputStream(data, 0, length))
+                        : new ByteArrayInputStream(data, 0, length))
+                .withPartSize(length)
+                .withPartNumber(partNumber)));
+    }
+
+    private boolean isThrottled() {
+        return this.throttle != null && this.throttle.isActive();
+    }
+
+    private boolean isStreamed() {
+        return this.bodies.isStreamed();
+    }
+
+    private InputStream openPart(File file, long offset, long size) {
+        try {
+            return this.bodies.open(file, offset, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeBody(UploadPartRequest request) {
+        InputStream body = request == null ? null : request.getInputStream();
+        if (body == null) {
+            return;
+        }
+        try {
+            body.close();
+        } catch (IOException e) {
+            this.status.addWarn("Could not close a part body of " + this.key, e);
+        }
+    }
+
+    public boolean isStarted() {
+        return this.uploadId != null;
+    }
+
+    public int getPendingPartCount() {
+        int pending = 0;
+        for (Future<PartETag> part : this.parts) {
+            if (!part.isDone()) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    public void awaitPendingParts(int maxPending) throws InterruptedException, ExecutionException {
+        for (Future<PartETag> part : this.parts) {
+            if (getPendingPartCount() < maxPending) {
+                return;
+            }
+            part.get();
+        }
+    }
+
+    public int getPartCount() {
+        return this.parts.size();
+    }
+
+    public String complete() throws InterruptedException, ExecutionException {
+        List<PartETag> partETags = new ArrayList<>(this.parts.size());
+        for (Future<PartETag> part : this.parts) {
+            partETags.add(part.get());
+        }
+        partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+
+        return this.amazonS3.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(this.bucketName, this.key, this.uploadId, partETags)).getETag();
+    }
+
+    public void abort() {
+        for (Future<PartETag> part : this.parts) {
+            part.cancel(true);
+        }
+
+        if (this.uploadId != null) {
+            try {
+                this.amazonS3.abortMultipartUpload(
+                        new AbortMultipartUploadRequest(this.bucketName, this.key, this.uploadId));
+            } catch (Exception ex) {
+                // S3 keeps the parts of an unfinished upload until a bucket lifecycle rule removes them.
+                this.status.addWarn("Could not abort the multipart upload to " + this.key, ex);
+            }
+        }
+    }
+
+    private PartETag uploadPart(Supplier<UploadPartRequest> requestSupplier) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            UploadPartRequest request = null;
+            try {
+                request = requestSupplier.get()
+                        .withBucketName(this.bucketName)
+                        .withKey(this.key)
+                        .withUploadId(this.uploadId);
+                return this.amazonS3.uploadPart(request).getPartETag();
+            } catch (RuntimeException ex) {
+                if (attempt >= MAX_PART_ATTEMPTS) {
+                    throw ex;
+                }
+                Thread.sleep(PART_RETRY_DELAY_MILLIS * attempt);
+            } finally {
+                // The SDK leaves streams it was given open; a channel body also returns its pooled buffer on close.
+                closeBody(request);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.executor.UploadThreads;
+import ch.qos.logback.core.rolling.throttle.UploadThrottle;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.S3CrtAsyncClientBuilder;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Uploads with the AWS SDK v2 S3AsyncClient, on Netty or, with crt set, on the AWS Common Runtime. A handful of
+// event-loop threads drive every upload in flight and large files are split into parts by the SDK itself, so
+// uploadWorkers can be raised well beyond the number of threads. Requires software.amazon.awssdk:s3, plus
+// software.amazon.awssdk.crt:aws-crt for the CRT client.
+public class S3AsyncUploadBackend implements UploadBackend {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 64;
+
+    private boolean crt;
+    private int maxConcurrency;
+
+    private String bucketName;
+    private UploadThrottle throttle;
+    private S3AsyncClient s3;
+    private ExecutorService throttledReaders;
+    private boolean virtualThreads;
+
+    public S3AsyncUploadBackend() {
+        setCrt(false);
+        setMaxConcurrency(DEFAULT_MAX_CONCURRENCY);
+    }
+
+    @Override
+    public void start(AmazonS3Client client) {
+        this.bucketName = client.getS3BucketName();
+        this.throttle = client.getThrottle();
+        this.virtualThreads = client.getShared().isVirtualThreads();
+
+        AwsCredentialsProvider credentials = client.getAwsAccessKey() != null && client.getAwsSecretKey() != null
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(client.getAwsAccessKey(), client.getAwsSecretKey()))
+                : DefaultCredentialsProvider.create();
+        Region region = Region.of(client.getRegion() != null ? client.getRegion() : S3ClientRegistry.DEFAULT_REGION);
+        URI endpoint = client.getEndpoint() != null ? URI.create(client.getEndpoint()) : null;
+        long threshold = client.getMultipartThreshold();
+
+        if (isCrt()) {
+            S3CrtAsyncClientBuilder builder = S3AsyncClient.crtBuilder()
+                    .credentialsProvider(credentials)
+                    .region(region)
+                    .maxConcurrency(getMaxConcurrency())
+                    .minimumPartSizeInBytes(client.getMultipartPartSize());
+            if (threshold > 0) {
+                builder.thresholdInBytes(threshold);
+            }
+            if (endpoint != null) {
+                builder.endpointOverride(endpoint).forcePathStyle(true);
+            }
+            this.s3 = builder.build();
+        } else {
+            S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                    .credentialsProvider(credentials)
+                    .region(region)
+                    .httpClientBuilder(NettyNioAsyncHttpClient.builder().maxConcurrency(getMaxConcurrency()));
+            if (threshold > 0) {
+                builder.multipartEnabled(true)
+                        .multipartConfiguration(MultipartConfiguration.builder()
+                                .thresholdInBytes(threshold)
+                                .minimumPartSizeInBytes(client.getMultipartPartSize())
+                                .build());
+            }
+            if (endpoint != null) {
+                builder.endpointOverride(endpoint).forcePathStyle(true);
+            }
+            this.s3 = builder.build();
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> upload(String key, File file) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(this.bucketName)
+                .key(key)
+                .acl(ObjectCannedACL.BUCKET_OWNER_FULL_CONTROL)
+                .build();
+        if (!this.throttle.isActive()) {
+            return this.s3.putObject(request, AsyncRequestBody.fromFile(file.toPath()))
+                    .thenApply(PutObjectResponse::eTag);
+        }
+
+        // A throttled body has to wait for tokens, which must not happen on an event-loop thread.
+        try {
+            AsyncRequestBody body = AsyncRequestBody.fromInputStream(
+                    this.throttle.wrap(Files.newInputStream(file.toPath())), file.length(), getThrottledReaders());
+            return this.s3.putObject(request, body).thenApply(PutObjectResponse::eTag);
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    @Override
+    public boolean isThrottling(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SdkServiceException) {
+                SdkServiceException service = (SdkServiceException) cause;
+                return service.isThrottlingException() || S3Throttling.isThrottlingStatus(service.statusCode());
+            }
+            if (cause instanceof ApiCallTimeoutException || cause instanceof ApiCallAttemptTimeoutException) {
+                return true;
+            }
+        }
+        return UploadBackend.super.isThrottling(failure);
+    }
+
+    private synchronized ExecutorService getThrottledReaders() {
+        if (this.throttledReaders == null) {
+            final AtomicInteger threads = new AtomicInteger();
+            this.throttledReaders = Executors.newCachedThreadPool(
+                    task -> UploadThreads.newThread(task, "s3-async-throttled-reader-" + threads.incrementAndGet(), true,
+                            this.virtualThreads));
+        }
+        return this.throttledReaders;
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        if (this.s3 != null) {
+            this.s3.close();
+            this.s3 = null;
+        }
+        synchronized (this) {
+            if (this.throttledReaders != null) {
+                this.throttledReaders.shutdownNow();
+                this.throttledReaders = null;
+            }
+        }
+    }
+
+    public boolean isCrt() {
+        return crt;
+    }
+
+    public void setCrt(boolean crt) {
+        this.crt = crt;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = Math.max(maxConcurrency, 1);
+    }
+}
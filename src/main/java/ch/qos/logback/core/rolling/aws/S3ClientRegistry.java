@@ -0,0 +1,54 @@
+package ch.qos.logback.core.rolling.aws;
+
+import com.amazonaws.regions.Regions;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One SharedS3Client per endpoint, region, credentials and bucket in the JVM, reference-counted so the
+// last policy that stops closes it.
+public class S3ClientRegistry {
+
+    public static final String DEFAULT_REGION = Regions.US_EAST_1.getName();
+
+    private static final Map<List<Object>, SharedS3Client> CLIENTS = new HashMap<>();
+
+    private S3ClientRegistry() {
+    }
+
+    public static SharedS3Client acquire(String endpoint, String region, String awsAccessKey, String awsSecretKey,
+                                         String bucketName, boolean virtualThreads) {
+        String resolvedRegion = region != null ? region : DEFAULT_REGION;
+        List<Object> key = Arrays.asList(endpoint, resolvedRegion, awsAccessKey, awsSecretKey, bucketName,
+                virtualThreads);
+
+        synchronized (CLIENTS) {
+            SharedS3Client client = CLIENTS.get(key);
+            if (client == null) {
+                client = new SharedS3Client(key, endpoint, resolvedRegion, awsAccessKey, awsSecretKey, bucketName,
+                        virtualThreads);
+                CLIENTS.put(key, client);
+            }
+            client.retain();
+            return client;
+        }
+    }
+
+    public static void release(SharedS3Client client) {
+        synchronized (CLIENTS) {
+            if (client.release() > 0) {
+                return;
+            }
+            CLIENTS.remove(client.getKey(), client);
+        }
+        client.close();
+    }
+
+    public static int size() {
+        synchronized (CLIENTS) {
+            return CLIENTS.size();
+        }
+    }
+}
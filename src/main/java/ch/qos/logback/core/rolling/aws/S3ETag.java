@@ -0,0 +1,92 @@
+package ch.qos.logback.core.rolling.aws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Checks a local file against the ETag S3 returned for it. Without SSE-KMS the ETag of a single PUT is the MD5
+// of the object, and the ETag of a multipart upload is the MD5 of its parts' MD5s followed by "-" and the part
+// count.
+public final class S3ETag {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Match {
+        MATCH, MISMATCH, UNKNOWN
+    }
+
+    private S3ETag() {
+    }
+
+    // UNKNOWN when the ETag is not MD5 based or its part count does not fit partSize, so the file cannot be checked.
+    public static Match check(String eTag, File file, long partSize) throws IOException {
+        if (eTag == null) {
+            return Match.UNKNOWN;
+        }
+        String value = eTag.replace("\"", "").toLowerCase();
+        int dash = value.indexOf('-');
+        long length = file.length();
+
+        if (dash < 0) {
+            if (value.length() != 32) {
+                return Match.UNKNOWN;
+            }
+            return value.equals(toHex(digest(file, 0, length))) ? Match.MATCH : Match.MISMATCH;
+        }
+
+        long parts;
+        try {
+            parts = Long.parseLong(value.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return Match.UNKNOWN;
+        }
+        if (partSize <= 0 || parts != Math.max((length + partSize - 1) / partSize, 1)) {
+            return Match.UNKNOWN;
+        }
+        MessageDigest partDigests = newMd5();
+        for (long offset = 0; offset < length; offset += partSize) {
+            partDigests.update(digest(file, offset, Math.min(partSize, length - offset)));
+        }
+        return value.equals(toHex(partDigests.digest()) + "-" + parts) ? Match.MATCH : Match.MISMATCH;
+    }
+
+    private static byte[] digest(File file, long offset, long length) throws IOException {
+        MessageDigest md5 = newMd5();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                md5.update(buffer);
+                position += read;
+            }
+        }
+        return md5.digest();
+    }
+
+    private static MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.util.IdentifierUtil;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Spreads keys over a fixed number of hex prefixes so a fleet writing the same folder does not hit the request
+// limit of a single S3 prefix. A host keeps one shard for a whole time bucket and moves to another in the next.
+public class S3KeyShards {
+
+    public static final String DEFAULT_PERIOD = "yyyyMMddHH";
+
+    private final int count;
+    private final int width;
+    private final DateTimeFormatter period;
+    private volatile String identifier;
+
+    public S3KeyShards(int count, String period) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + count);
+        }
+        this.count = count;
+        this.width = Integer.toHexString(count - 1).length();
+        this.period = DateTimeFormatter.ofPattern(period == null ? DEFAULT_PERIOD : period).withZone(ZoneId.systemDefault());
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int shardOf(Instant time) {
+        if (this.identifier == null) {
+            this.identifier = IdentifierUtil.getIdentifier();
+        }
+        return shardOf(this.identifier, this.period.format(time), this.count);
+    }
+
+    // String.hashCode is specified, so readers on any JVM can recompute a host's shard for a bucket.
+    public static int shardOf(String identifier, String bucket, int count) {
+        int h = identifier.hashCode() * 31 + bucket.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, count);
+    }
+
+    public void append(StringBuilder key, Instant time) {
+        appendShard(key, shardOf(time));
+    }
+
+    private void appendShard(StringBuilder key, int shard) {
+        String hex = Integer.toHexString(shard);
+        for (int i = hex.length(); i < this.width; i++) {
+            key.append('0');
+        }
+        key.append(hex);
+    }
+
+    // Every prefix a folder can be written under, for example all of "<shard>/logs/2024/01/31/".
+    public List<String> prefixes(String beforeShard, String afterShard) {
+        List<String> prefixes = new ArrayList<>(this.count);
+        StringBuilder prefix = new StringBuilder();
+        for (int shard = 0; shard < this.count; shard++) {
+            prefix.setLength(0);
+            prefix.append(beforeShard == null ? "" : beforeShard);
+            appendShard(prefix, shard);
+            prefix.append(afterShard == null ? "" : afterShard);
+            prefixes.add(prefix.toString());
+        }
+        return prefixes;
+    }
+
+    // Lists all shards of a folder concurrently, each one page after page, and returns the objects of all of them.
+    public List<S3ObjectSummary> listObjects(final AmazonS3 amazonS3, final String bucket, String beforeShard,
+                                             String afterShard, Executor executor) {
+        List<CompletableFuture<List<S3ObjectSummary>>> listings = new ArrayList<>(this.count);
+        for (final String prefix : prefixes(beforeShard, afterShard)) {
+            listings.add(CompletableFuture.supplyAsync(() -> listObjects(amazonS3, bucket, prefix), executor));
+        }
+
+        List<S3ObjectSummary> objects = new ArrayList<>();
+        for (CompletableFuture<List<S3ObjectSummary>> listing : listings) {
+            objects.addAll(listing.join());
+        }
+        return objects;
+    }
+
+    private static List<S3ObjectSummary> listObjects(AmazonS3 amazonS3, String bucket, String prefix) {
+        List<S3ObjectSummary> objects = new ArrayList<>();
+        ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(bucket).withPrefix(prefix);
+        ListObjectsV2Result result;
+        do {
+            result = amazonS3.listObjectsV2(request);
+            objects.addAll(result.getObjectSummaries());
+            request.setContinuationToken(result.getNextContinuationToken());
+        } while (result.isTruncated());
+        return objects;
+    }
+}
@@ -0,0 +1,177 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.data.CustomData;
+import ch.qos.logback.core.rolling.util.IdentifierUtil;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class S3KeyTemplate {
+
+    private static final DateTimeFormatter TIMESTAMP_PREFIX =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneId.systemDefault());
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final Segment[] folder;
+    private final boolean prefixTimestamp;
+    private final boolean prefixIdentifier;
+    private final S3KeyShards shards;
+    private final boolean leadingShard;
+    private final AtomicLong sequence;
+
+    private S3KeyTemplate(Segment[] folder, boolean prefixTimestamp, boolean prefixIdentifier, S3KeyShards shards,
+                          boolean leadingShard) {
+        this.folder = folder;
+        this.prefixTimestamp = prefixTimestamp;
+        this.prefixIdentifier = prefixIdentifier;
+        this.shards = shards;
+        this.leadingShard = leadingShard;
+        this.sequence = new AtomicLong();
+    }
+
+    public static S3KeyTemplate compile(String folderTemplate, boolean prefixTimestamp, boolean prefixIdentifier) {
+        return compile(folderTemplate, prefixTimestamp, prefixIdentifier, null);
+    }
+
+    // Supported tokens: %d{pattern} with a SimpleDateFormat pattern, as always, and %{host}, %{pid}, %{seq}, %{id}
+    // and %{shard}. Anything else, a lone % included, is kept as it is, so existing folder names keep their keys.
+    // Keys are built on upload threads, so nothing of the logging thread such as its MDC can go into them. %{seq}
+    // counts from 0 in every JVM, it only makes keys unique together with %{pid}, %{id} or a timestamp prefix.
+    // With shards and no %{shard} in the folder, the shard goes in front of the whole key.
+    public static S3KeyTemplate compile(String folderTemplate, boolean prefixTimestamp, boolean prefixIdentifier,
+                                        S3KeyShards shards) {
+        if (prefixIdentifier || shards != null) {
+            IdentifierUtil.getIdentifierAsync();
+        }
+        Segment[] folder = folderTemplate == null ? null : parse(folderTemplate, shards);
+        boolean leadingShard = shards != null && (folderTemplate == null || !folderTemplate.contains("%{shard}"));
+        return new S3KeyTemplate(folder, prefixTimestamp, prefixIdentifier, shards, leadingShard);
+    }
+
+    public String build(String fileName, Date date, boolean overrideTimestampSetting) {
+        final Instant time = date.toInstant();
+        final StringBuilder key = BUILDER.get();
+        key.setLength(0);
+
+        if (this.leadingShard) {
+            this.shards.append(key, time);
+            key.append('/');
+        }
+
+        if (this.folder != null) {
+            long seq = this.sequence.getAndIncrement();
+            for (Segment segment : this.folder) {
+                segment.append(key, time, seq);
+            }
+            key.append('/');
+        }
+
+        String extraS3Folder = CustomData.extraS3Folder.get();
+        if (extraS3Folder != null) {
+            key.append(extraS3Folder).append('/');
+        }
+
+        if (this.prefixTimestamp || overrideTimestampSetting) {
+            TIMESTAMP_PREFIX.formatTo(time, key);
+            key.append('_');
+        }
+
+        if (this.prefixIdentifier) {
+            // Resolved in the background since start, this only waits if the first key is built right away.
+            key.append(IdentifierUtil.getIdentifier()).append('_');
+        }
+
+        int separator = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+        key.append(fileName, separator + 1, fileName.length());
+
+        return key.toString();
+    }
+
+    private static Segment[] parse(String template, final S3KeyShards shards) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c != '%' || i + 1 == template.length()) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            Segment segment = null;
+            int next = i + 1;
+            if (template.startsWith("d{", next)) {
+                int end = template.indexOf('}', next + 2);
+                if (end > 0) {
+                    segment = dateSegment(template.substring(next + 2, end));
+                    next = end + 1;
+                }
+            } else if (template.startsWith("{host}", next)) {
+                // Resolved in the background since start, this only waits if the first key is built right away.
+                IdentifierUtil.getLocalHostNameAsync();
+                segment = (key, time, seq) -> key.append(IdentifierUtil.getLocalHostNameAsync().join());
+                next += 6;
+            } else if (template.startsWith("{pid}", next)) {
+                segment = literalSegment(Long.toString(ProcessHandle.current().pid()));
+                next += 5;
+            } else if (template.startsWith("{seq}", next)) {
+                segment = (key, time, seq) -> key.append(seq);
+                next += 5;
+            } else if (shards != null && template.startsWith("{shard}", next)) {
+                segment = (key, time, seq) -> shards.append(key, time);
+                next += 7;
+            } else if (template.startsWith("{id}", next)) {
+                IdentifierUtil.getIdentifierAsync();
+                segment = (key, time, seq) -> key.append(IdentifierUtil.getIdentifier());
+                next += 4;
+            }
+
+            if (segment == null) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            if (literal.length() > 0) {
+                segments.add(literalSegment(literal.toString()));
+                literal.setLength(0);
+            }
+            segments.add(segment);
+            i = next;
+        }
+
+        if (literal.length() > 0) {
+            segments.add(literalSegment(literal.toString()));
+        }
+        return segments.toArray(new Segment[0]);
+    }
+
+    private static Segment literalSegment(final String value) {
+        return (key, time, seq) -> key.append(value);
+    }
+
+    // A pattern SimpleDateFormat rejects fails the start rather than every upload.
+    private static Segment dateSegment(final String pattern) {
+        try {
+            new SimpleDateFormat(pattern);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid date pattern %d{" + pattern + "} in s3FolderName", e);
+        }
+        final ThreadLocal<SimpleDateFormat> format = ThreadLocal.withInitial(() -> new SimpleDateFormat(pattern));
+        return (key, time, seq) -> key.append(format.get().format(Date.from(time)));
+    }
+
+    private interface Segment {
+
+        void append(StringBuilder key, Instant time, long seq);
+    }
+}
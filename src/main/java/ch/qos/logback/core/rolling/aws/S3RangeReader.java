@@ -0,0 +1,94 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.compress.BlockIndex;
+import ch.qos.logback.core.rolling.compress.CompressionCodec;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+// Fetches a time range of a block-compressed object through its BlockIndex sidecar: one GET for the index and
+// one ranged GET for the blocks around the range, instead of the whole object.
+public class S3RangeReader {
+
+    private final AmazonS3 amazonS3;
+    private final String bucketName;
+
+    public S3RangeReader(AmazonS3 amazonS3, String bucketName) {
+        this.amazonS3 = amazonS3;
+        this.bucketName = bucketName;
+    }
+
+    public BlockIndex readIndex(String key) throws IOException {
+        try (S3Object object = this.amazonS3.getObject(this.bucketName, key + BlockIndex.SUFFIX);
+             InputStream in = object.getObjectContent()) {
+            return BlockIndex.read(in);
+        }
+    }
+
+    // Whole lines only; a few lines just outside the range may be included.
+    public byte[] read(String key, Instant from, Instant to) throws IOException {
+        CompressionCodec codec = CompressionCodec.fromFileName(key);
+        if (codec == null) {
+            throw new IllegalArgumentException(key + " does not end in .gz, .zst or .lz4");
+        }
+
+        BlockIndex index = readIndex(key);
+        List<BlockIndex.Entry> blocks = index.find(from.toEpochMilli(), to.toEpochMilli());
+        if (blocks.isEmpty()) {
+            return new byte[0];
+        }
+        BlockIndex.Entry first = blocks.get(0);
+        BlockIndex.Entry last = blocks.get(blocks.size() - 1);
+
+        byte[] raw;
+        GetObjectRequest request = new GetObjectRequest(this.bucketName, key)
+                .withRange(first.getOffset(), last.getOffset() + last.getLength() - 1);
+        try (S3Object object = this.amazonS3.getObject(request);
+             InputStream in = codec.newInputStream(object.getObjectContent())) {
+            raw = in.readAllBytes();
+        }
+
+        // Blocks are cut at fixed sizes, drop the partial lines at both ends.
+        List<BlockIndex.Entry> entries = index.getEntries();
+        int start = first.getRawOffset() == 0 ? 0 : indexAfter(raw, 0);
+        int end = last == entries.get(entries.size() - 1) ? raw.length : indexAfterLast(raw);
+        return Arrays.copyOfRange(raw, start, Math.max(start, end));
+    }
+
+    private static int indexAfter(byte[] data, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return data.length;
+    }
+
+    private static int indexAfterLast(byte[] data) {
+        for (int i = data.length - 1; i >= 0; i--) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    // Usage: S3RangeReader <bucket> <key> <from> <to>, with ISO-8601 instants such as 2024-01-31T10:00:00Z.
+    // Credentials and region come from the AWS SDK default provider chain.
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: S3RangeReader <bucket> <key> <from> <to>");
+            System.exit(2);
+        }
+        S3RangeReader reader = new S3RangeReader(AmazonS3ClientBuilder.defaultClient(), args[0]);
+        System.out.write(reader.read(args[1], Instant.parse(args[2]), Instant.parse(args[3])));
+        System.out.flush();
+    }
+}
@@ -0,0 +1,35 @@
+package ch.qos.logback.core.rolling.aws;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.http.timers.client.ClientExecutionTimeoutException;
+import com.amazonaws.retry.RetryUtils;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+// Tells failures that mean "send fewer requests at once" from other ones, walking the cause chain because
+// futures wrap the SDK's exception.
+final class S3Throttling {
+
+    private S3Throttling() {
+    }
+
+    static boolean isThrottling(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AmazonServiceException) {
+                AmazonServiceException service = (AmazonServiceException) cause;
+                return isThrottlingStatus(service.getStatusCode()) || RetryUtils.isThrottlingException(service);
+            }
+            if (cause instanceof SocketTimeoutException || cause instanceof TimeoutException
+                    || cause instanceof ClientExecutionTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 503 is S3's SlowDown, 429 what S3-compatible stores tend to use instead.
+    static boolean isThrottlingStatus(int statusCode) {
+        return statusCode == 503 || statusCode == 429;
+    }
+}
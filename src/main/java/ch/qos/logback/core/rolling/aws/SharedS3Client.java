@@ -0,0 +1,182 @@
+package ch.qos.logback.core.rolling.aws;
+
+import ch.qos.logback.core.rolling.executor.UploadThreads;
+import ch.qos.logback.core.rolling.executor.UploadWorkerPool;
+import ch.qos.logback.core.rolling.io.DirectBufferPool;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.CreateBucketRequest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The AmazonS3 client, its connection pool and the threads that every AmazonS3Client for the same bucket,
+// region, credentials and kind of threads share. Handed out by S3ClientRegistry.
+public class SharedS3Client {
+
+    private static final Executor WARM_UP_EXECUTOR = task -> UploadThreads.newThread(task, "s3-client-warm-up", true)
+            .start();
+
+    private final List<Object> key;
+    private final String endpoint;
+    private final String region;
+    private final String awsAccessKey;
+    private final String awsSecretKey;
+    private final String bucketName;
+    private final boolean virtualThreads;
+
+    private final UploadWorkerPool workerPool;
+    private final ThreadPoolExecutor partExecutor;
+    private final ScheduledThreadPoolExecutor retryScheduler;
+    private final DirectBufferPool bufferPool;
+
+    private volatile CompletableFuture<AmazonS3> amazonS3;
+    private int references;
+
+    SharedS3Client(List<Object> key, String endpoint, String region, String awsAccessKey, String awsSecretKey,
+                   String bucketName, boolean virtualThreads) {
+        this.key = key;
+        this.endpoint = endpoint;
+        this.region = region;
+        this.awsAccessKey = awsAccessKey;
+        this.awsSecretKey = awsSecretKey;
+        this.bucketName = bucketName;
+        this.virtualThreads = virtualThreads;
+
+        this.workerPool = new UploadWorkerPool(1, virtualThreads);
+
+        final AtomicInteger partThreads = new AtomicInteger();
+        this.partExecutor = new ThreadPoolExecutor(1, 1, UploadWorkerPool.DEFAULT_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                task -> UploadThreads.newThread(task, "s3-upload-part-" + partThreads.incrementAndGet(), false,
+                        virtualThreads));
+        this.partExecutor.allowCoreThreadTimeOut(true);
+
+        this.retryScheduler = new ScheduledThreadPoolExecutor(1,
+                task -> UploadThreads.newThread(task, "s3-upload-retry", true));
+        this.retryScheduler.setRemoveOnCancelPolicy(true);
+        this.bufferPool = new DirectBufferPool();
+
+        this.references = 0;
+        this.amazonS3 = warmUp();
+    }
+
+    // Builds the client and validates the bucket on a background thread, so neither start() nor rollover waits
+    // for the network. Upload workers block on the result instead.
+    private CompletableFuture<AmazonS3> warmUp() {
+        return CompletableFuture.supplyAsync(() -> {
+            AmazonS3 amazonS3 = buildAmazonS3();
+            if (!amazonS3.doesBucketExistV2(this.bucketName)) {
+                amazonS3.createBucket(new CreateBucketRequest(this.bucketName));
+            }
+            return amazonS3;
+        }, WARM_UP_EXECUTOR);
+    }
+
+    private AmazonS3 buildAmazonS3() {
+        AWSCredentialsProvider credentials = this.awsAccessKey != null && this.awsSecretKey != null
+                ? new AWSStaticCredentialsProvider(new BasicAWSCredentials(this.awsAccessKey, this.awsSecretKey))
+                : DefaultAWSCredentialsProviderChain.getInstance();
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                .withCredentials(credentials);
+        if (this.endpoint != null) {
+            builder.withEndpointConfiguration(new EndpointConfiguration(this.endpoint, this.region))
+                    .withPathStyleAccessEnabled(true);
+        } else {
+            builder.withRegion(this.region);
+        }
+        return builder.build();
+    }
+
+    public AmazonS3 getAmazonS3() {
+        CompletableFuture<AmazonS3> amazonS3 = this.amazonS3;
+        try {
+            return amazonS3.join();
+        } catch (CompletionException ex) {
+            // S3 was not reachable during warm-up; the failing upload is retried and waits for a new attempt.
+            synchronized (this) {
+                if (this.amazonS3 == amazonS3) {
+                    this.amazonS3 = warmUp();
+                }
+            }
+            throw ex;
+        }
+    }
+
+    public CompletableFuture<AmazonS3> getWarmUp() {
+        return amazonS3;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public UploadWorkerPool getWorkerPool() {
+        return workerPool;
+    }
+
+    public ExecutorService getPartExecutor() {
+        return partExecutor;
+    }
+
+    public ScheduledExecutorService getRetryScheduler() {
+        return retryScheduler;
+    }
+
+    public DirectBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    // Grows the shared part pool to the largest multipartConcurrency of its users.
+    public synchronized void ensurePartConcurrency(int concurrency) {
+        if (concurrency > this.partExecutor.getMaximumPoolSize()) {
+            this.partExecutor.setMaximumPoolSize(concurrency);
+            this.partExecutor.setCorePoolSize(concurrency);
+        }
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public synchronized int getReferences() {
+        return references;
+    }
+
+    List<Object> getKey() {
+        return key;
+    }
+
+    synchronized int retain() {
+        return ++this.references;
+    }
+
+    synchronized int release() {
+        return --this.references;
+    }
+
+    void close() {
+        this.workerPool.shutdown();
+        this.partExecutor.shutdownNow();
+        this.retryScheduler.shutdownNow();
+        this.amazonS3.thenAccept(AmazonS3::shutdown);
+    }
+}
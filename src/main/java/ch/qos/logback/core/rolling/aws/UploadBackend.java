@@ -0,0 +1,26 @@
+package ch.qos.logback.core.rolling.aws;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+// Sends rolled files to S3. Chosen in logback.xml with <uploadBackend class="..."/>, its own settings go in
+// nested elements. Retries, journaling and metrics stay with AmazonS3Client.
+public interface UploadBackend {
+
+    void start(AmazonS3Client client);
+
+    // Completes with the object's ETag once it exists in the bucket, or null if the backend cannot tell it,
+    // or exceptionally when the upload failed.
+    CompletableFuture<String> upload(String key, File file);
+
+    // Whether upload() returns before the transfer is done. A non-blocking backend lets a single upload thread
+    // keep uploadWorkers uploads in flight.
+    boolean isNonBlocking();
+
+    // Whether a failed upload means S3 wants fewer requests at once: a 503 SlowDown, a 429 or a timeout.
+    default boolean isThrottling(Throwable failure) {
+        return S3Throttling.isThrottling(failure);
+    }
+
+    void stop();
+}
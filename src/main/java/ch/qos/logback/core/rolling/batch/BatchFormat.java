@@ -0,0 +1,17 @@
+package ch.qos.logback.core.rolling.batch;
+
+public enum BatchFormat {
+
+    TAR(".tar"),
+    GZIP(".gz");
+
+    private final String suffix;
+
+    BatchFormat(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+}
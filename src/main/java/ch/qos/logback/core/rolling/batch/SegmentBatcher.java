@@ -0,0 +1,302 @@
+package ch.qos.logback.core.rolling.batch;
+
+import ch.qos.logback.core.spi.ContextAware;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Collects rolled segments and writes them into one aggregated file once maxBytes or maxAge is reached.
+// Every aggregate comes with a manifest of "offset<TAB>length<TAB>name" lines, one per segment, where the
+// offset is the start of the segment's data (tar) or gzip member (gzip) in the aggregate.
+public class SegmentBatcher {
+
+    public static final String MANIFEST_SUFFIX = ".manifest";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    private final BatchFormat format;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final File directory;
+    private final ScheduledExecutorService scheduler;
+    private final BatchUploader uploader;
+    private final ContextAware status;
+
+    private List<Segment> pending;
+    private long pendingBytes;
+    private ScheduledFuture<?> scheduledFlush;
+
+    public SegmentBatcher(BatchFormat format, long maxBytes, long maxAgeMillis, File directory,
+                          ScheduledExecutorService scheduler, BatchUploader uploader, ContextAware status) {
+        this.format = format;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.directory = directory;
+        this.scheduler = scheduler;
+        this.uploader = uploader;
+        this.status = status;
+        this.pending = new ArrayList<>();
+        this.pendingBytes = 0;
+        this.scheduledFlush = null;
+    }
+
+    public synchronized void add(File file, String key, Date date, String journalId) {
+        this.pending.add(new Segment(file, key, date, journalId));
+        this.pendingBytes += file.length();
+
+        if (this.pendingBytes >= this.maxBytes) {
+            // Copying the segments may take a while, keep it off the rolling thread.
+            scheduleFlush(0);
+        } else if (this.scheduledFlush == null) {
+            scheduleFlush(this.maxAgeMillis);
+        }
+    }
+
+    // Writes and hands over whatever is pending on the calling thread, used at shutdown.
+    public void flush() {
+        List<Segment> segments;
+        synchronized (this) {
+            if (this.scheduledFlush != null) {
+                this.scheduledFlush.cancel(false);
+                this.scheduledFlush = null;
+            }
+            segments = this.pending;
+            this.pending = new ArrayList<>();
+            this.pendingBytes = 0;
+        }
+
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        try {
+            writeBatch(segments);
+        } catch (IOException | RuntimeException e) {
+            this.status.addWarn("Could not batch " + segments.size() + " segments, uploading them one by one", e);
+            // The segments are still on disk, send them one by one instead.
+            for (Segment segment : segments) {
+                this.uploader.uploadSegment(segment.file, segment.key, segment.journalId);
+            }
+        }
+    }
+
+    public boolean owns(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        return parent != null && parent.equals(this.directory.getAbsoluteFile());
+    }
+
+    public synchronized int getPendingSegments() {
+        return pending.size();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        if (this.scheduledFlush != null) {
+            this.scheduledFlush.cancel(false);
+        }
+        try {
+            this.scheduledFlush = this.scheduler.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, flush() is called from doShutdown.
+            this.scheduledFlush = null;
+        }
+    }
+
+    private void writeBatch(List<Segment> segments) throws IOException {
+        if (!this.directory.exists() && !this.directory.mkdirs()) {
+            throw new IOException("Could not create batch directory " + this.directory);
+        }
+
+        Segment first = segments.get(0);
+        String name = first.file.getName() + ".batch-" + System.currentTimeMillis() + this.format.getSuffix();
+        File batch = new File(this.directory, name);
+        File manifest = new File(this.directory, name + MANIFEST_SUFFIX);
+        File tempBatch = new File(this.directory, name + ".tmp");
+
+        List<String> entries = new ArrayList<>(segments.size());
+        List<File> written = new ArrayList<>(segments.size());
+        try (CountingOutputStream out = new CountingOutputStream(Files.newOutputStream(tempBatch.toPath()))) {
+            for (Segment segment : segments) {
+                if (!segment.file.exists()) {
+                    continue;
+                }
+                if (this.format == BatchFormat.TAR) {
+                    writeTarEntry(out, segment.file, entries);
+                } else {
+                    writeGzipMember(out, segment.file, entries);
+                }
+                written.add(segment.file);
+            }
+            if (this.format == BatchFormat.TAR) {
+                out.write(new byte[TAR_BLOCK_SIZE * 2]);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempBatch.toPath());
+            throw e;
+        }
+
+        try (Writer writer = Files.newBufferedWriter(manifest.toPath(), StandardCharsets.UTF_8)) {
+            for (String entry : entries) {
+                writer.write(entry);
+                writer.write('\n');
+            }
+        }
+        Files.move(tempBatch.toPath(), batch.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        List<String> journalIds = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            journalIds.add(segment.journalId);
+        }
+        this.uploader.uploadBatch(batch, manifest, first.date, journalIds, written);
+    }
+
+    private void writeTarEntry(CountingOutputStream out, File file, List<String> entries) throws IOException {
+        long size = file.length();
+        out.write(tarHeader(file.getName(), size, file.lastModified()));
+        long offset = out.getCount();
+        long copied = copy(file, out);
+        if (copied != size) {
+            throw new IOException(file + " changed while it was being batched");
+        }
+        int padding = (int) ((TAR_BLOCK_SIZE - size % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE);
+        out.write(new byte[padding]);
+        entries.add(offset + "\t" + size + "\t" + file.getName());
+    }
+
+    private void writeGzipMember(CountingOutputStream out, File file, List<String> entries) throws IOException {
+        long offset = out.getCount();
+        if (file.getName().endsWith(BatchFormat.GZIP.getSuffix())) {
+            // A gzip file is already a sequence of members, it is appended as it is.
+            copy(file, out);
+        } else {
+            // Closing the member finishes it and frees its native Deflater, the aggregate stays open.
+            try (GZIPOutputStream gzip = new GZIPOutputStream(new FilterOutputStream(out) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    // The aggregate stays open for the next member.
+                }
+            }, BUFFER_SIZE)) {
+                copy(file, gzip);
+            }
+        }
+        entries.add(offset + "\t" + (out.getCount() - offset) + "\t" + file.getName());
+    }
+
+    private static long copy(File file, OutputStream out) throws IOException {
+        long copied = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+                copied += len;
+            }
+        }
+        return copied;
+    }
+
+    // A ustar header. Names longer than 100 bytes are cut, the manifest keeps the full name.
+    private static byte[] tarHeader(String name, long size, long lastModified) {
+        byte[] header = new byte[TAR_BLOCK_SIZE];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, 100));
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, lastModified / 1000);
+        header[156] = '0';
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+        // The checksum is computed with its own field filled with spaces.
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        putOctal(header, 148, 7, checksum);
+        return header;
+    }
+
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        int digits = length - 1;
+        for (int i = 0; i < digits; i++) {
+            int index = octal.length() - digits + i;
+            header[offset + i] = (byte) (index < 0 ? '0' : octal.charAt(index));
+        }
+        header[offset + digits] = 0;
+    }
+
+    public interface BatchUploader {
+
+        void uploadBatch(File batch, File manifest, Date date, List<String> journalIds, List<File> segments);
+
+        void uploadSegment(File segment, String key, String journalId);
+    }
+
+    private static class Segment {
+        private final File file;
+        private final String key;
+        private final Date date;
+        private final String journalId;
+
+        Segment(File file, String key, Date date, String journalId) {
+            this.file = file;
+            this.key = key;
+            this.date = date;
+            this.journalId = journalId;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+            this.count = 0;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
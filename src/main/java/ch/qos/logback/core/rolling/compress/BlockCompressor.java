@@ -0,0 +1,8 @@
+package ch.qos.logback.core.rolling.compress;
+
+import java.io.IOException;
+
+public interface BlockCompressor {
+
+    byte[] compress(byte[] data, int length) throws IOException;
+}
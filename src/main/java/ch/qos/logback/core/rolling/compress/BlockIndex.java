@@ -0,0 +1,162 @@
+package ch.qos.logback.core.rolling.compress;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// The sidecar of a block-compressed object. For every independently decompressible block it holds the offset
+// and length in the raw and the compressed file and the times of its first and last timestamped line, 40 bytes
+// per block, so a reader can fetch a time range with one ranged GET.
+public class BlockIndex {
+
+    public static final String SUFFIX = ".idx";
+    public static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
+    private static final int MAGIC = 0x53334249;
+    private static final int VERSION = 1;
+
+    private final List<Entry> entries;
+    private long rawLength;
+    private long length;
+    private long lastTime;
+
+    public BlockIndex() {
+        this.entries = new ArrayList<>();
+        this.lastTime = UNKNOWN_TIME;
+    }
+
+    // Blocks are added in order. Lines without a timestamp at the start of a block, the rest of a long stack
+    // trace for example, belong to the last event of the block before it.
+    public void add(int rawLength, int length, long firstTime, long lastTime) {
+        if (firstTime == UNKNOWN_TIME) {
+            firstTime = this.lastTime != UNKNOWN_TIME ? this.lastTime : lastTime;
+        }
+        if (lastTime == UNKNOWN_TIME) {
+            lastTime = firstTime;
+        }
+        this.entries.add(new Entry(this.rawLength, rawLength, this.length, length, firstTime, lastTime));
+        this.rawLength += rawLength;
+        this.length += length;
+        if (lastTime != UNKNOWN_TIME) {
+            this.lastTime = lastTime;
+        }
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    // The blocks between the first and the last one that overlap [from, to], widened by one block on each side:
+    // the one before may hold lines logged slightly out of order, the one after completes the last line.
+    public List<Entry> find(long from, long to) {
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < this.entries.size(); i++) {
+            Entry entry = this.entries.get(i);
+            if (entry.firstTime != UNKNOWN_TIME && entry.lastTime >= from && entry.firstTime <= to) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        if (first < 0) {
+            return Collections.emptyList();
+        }
+        return getEntries().subList(Math.max(first - 1, 0), Math.min(last + 2, this.entries.size()));
+    }
+
+    public void write(File file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(this.entries.size());
+        for (Entry entry : this.entries) {
+            data.writeLong(entry.rawOffset);
+            data.writeInt(entry.rawLength);
+            data.writeLong(entry.offset);
+            data.writeInt(entry.length);
+            data.writeLong(entry.firstTime);
+            data.writeLong(entry.lastTime);
+        }
+        data.flush();
+    }
+
+    public static BlockIndex read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a block index");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported block index version " + version);
+        }
+        BlockIndex index = new BlockIndex();
+        int count = data.readInt();
+        for (int i = 0; i < count; i++) {
+            Entry entry = new Entry(data.readLong(), data.readInt(), data.readLong(), data.readInt(), data.readLong(),
+                    data.readLong());
+            index.entries.add(entry);
+            index.rawLength = entry.rawOffset + entry.rawLength;
+            index.length = entry.offset + entry.length;
+        }
+        return index;
+    }
+
+    public static class Entry {
+        private final long rawOffset;
+        private final int rawLength;
+        private final long offset;
+        private final int length;
+        private final long firstTime;
+        private final long lastTime;
+
+        Entry(long rawOffset, int rawLength, long offset, int length, long firstTime, long lastTime) {
+            this.rawOffset = rawOffset;
+            this.rawLength = rawLength;
+            this.offset = offset;
+            this.length = length;
+            this.firstTime = firstTime;
+            this.lastTime = lastTime;
+        }
+
+        public long getRawOffset() {
+            return rawOffset;
+        }
+
+        public int getRawLength() {
+            return rawLength;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public long getFirstTime() {
+            return firstTime;
+        }
+
+        public long getLastTime() {
+            return lastTime;
+        }
+    }
+}
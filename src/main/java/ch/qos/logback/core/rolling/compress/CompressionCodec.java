@@ -0,0 +1,76 @@
+package ch.qos.logback.core.rolling.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+public enum CompressionCodec {
+
+    GZIP(".gz", null),
+    ZSTD(".zst", "com.github.luben.zstd.Zstd"),
+    LZ4(".lz4", "net.jpountz.lz4.LZ4FrameOutputStream");
+
+    private final String suffix;
+    private final String requiredClass;
+
+    CompressionCodec(String suffix, String requiredClass) {
+        this.suffix = suffix;
+        this.requiredClass = requiredClass;
+    }
+
+    public static CompressionCodec fromFileName(String fileName) {
+        if (fileName != null) {
+            for (CompressionCodec codec : values()) {
+                if (fileName.endsWith(codec.suffix)) {
+                    return codec;
+                }
+            }
+        }
+        return null;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public String stripSuffix(String fileName) {
+        return fileName.endsWith(this.suffix) ? fileName.substring(0, fileName.length() - this.suffix.length()) : fileName;
+    }
+
+    public boolean isAvailable() {
+        if (this.requiredClass == null) {
+            return true;
+        }
+        try {
+            Class.forName(this.requiredClass, false, CompressionCodec.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public BlockCompressor newBlockCompressor() {
+        switch (this) {
+            case ZSTD:
+                return new ZstdBlockCompressor();
+            case LZ4:
+                return new Lz4BlockCompressor();
+            case GZIP:
+            default:
+                return new GzipBlockCompressor();
+        }
+    }
+
+    // Reads concatenated blocks, or any run of them that starts at a block boundary, as one stream.
+    public InputStream newInputStream(InputStream in) throws IOException {
+        switch (this) {
+            case ZSTD:
+                return ZstdBlockCompressor.newInputStream(in);
+            case LZ4:
+                return Lz4BlockCompressor.newInputStream(in);
+            case GZIP:
+            default:
+                return new GZIPInputStream(in);
+        }
+    }
+}
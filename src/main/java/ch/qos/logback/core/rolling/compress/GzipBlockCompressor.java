@@ -0,0 +1,18 @@
+package ch.qos.logback.core.rolling.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+// Every block becomes a complete gzip member; gunzip reads concatenated members as one stream.
+public class GzipBlockCompressor implements BlockCompressor {
+
+    @Override
+    public byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(length / 4, 64));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data, 0, length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,25 @@
+package ch.qos.logback.core.rolling.compress;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Every block becomes an LZ4 frame; lz4 decodes concatenated frames as one stream.
+public class Lz4BlockCompressor implements BlockCompressor {
+
+    @Override
+    public byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(length / 2, 64));
+        try (LZ4FrameOutputStream lz4 = new LZ4FrameOutputStream(out)) {
+            lz4.write(data, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    static InputStream newInputStream(InputStream in) throws IOException {
+        return new LZ4FrameInputStream(in);
+    }
+}
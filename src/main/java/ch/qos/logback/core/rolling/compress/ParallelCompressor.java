@@ -0,0 +1,129 @@
+package ch.qos.logback.core.rolling.compress;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class ParallelCompressor {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private final CompressionCodec codec;
+    private final int blockSize;
+    private final ForkJoinPool pool;
+    private final TimestampScanner scanner;
+
+    public ParallelCompressor(CompressionCodec codec, int blockSize, ForkJoinPool pool) {
+        this(codec, blockSize, pool, null);
+    }
+
+    // With a scanner every compressed file gets a BlockIndex sidecar, the target name plus BlockIndex.SUFFIX.
+    public ParallelCompressor(CompressionCodec codec, int blockSize, ForkJoinPool pool, TimestampScanner scanner) {
+        this.codec = codec;
+        this.blockSize = Math.max(blockSize, 64 * 1024);
+        this.pool = pool;
+        this.scanner = scanner;
+    }
+
+    public void compress(String source, String target) throws IOException {
+        File sourceFile = new File(source);
+        File targetFile = new File(target);
+        File tempFile = new File(target + ".tmp");
+        File indexFile = new File(target + BlockIndex.SUFFIX);
+        File tempIndexFile = new File(indexFile.getPath() + ".tmp");
+
+        BlockCompressor compressor = this.codec.newBlockCompressor();
+        BlockIndex index = this.scanner == null ? null : new BlockIndex();
+        // Read ahead at most two blocks per worker so memory stays bounded for any file size.
+        int maxInFlight = this.pool.getParallelism() * 2;
+        Deque<ForkJoinTask<CompressedBlock>> inFlight = new ArrayDeque<>(maxInFlight);
+
+        try (InputStream in = Files.newInputStream(sourceFile.toPath());
+             OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+            boolean atLineStart = true;
+            while (true) {
+                final byte[] block = new byte[this.blockSize];
+                final int length = in.readNBytes(block, 0, this.blockSize);
+                if (length == 0) {
+                    break;
+                }
+
+                final boolean startsLine = atLineStart;
+                atLineStart = block[length - 1] == '\n';
+                inFlight.addLast(this.pool.submit(() -> compressBlock(compressor, block, length, startsLine)));
+                if (inFlight.size() >= maxInFlight) {
+                    write(out, index, inFlight.removeFirst().join());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(out, index, inFlight.removeFirst().join());
+            }
+            if (index != null) {
+                index.write(tempIndexFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (ForkJoinTask<CompressedBlock> task : inFlight) {
+                task.cancel(true);
+            }
+            Files.deleteIfExists(tempFile.toPath());
+            Files.deleteIfExists(tempIndexFile.toPath());
+            throw e;
+        }
+
+        Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        if (index != null) {
+            Files.move(tempIndexFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.delete(sourceFile.toPath());
+    }
+
+    private CompressedBlock compressBlock(BlockCompressor compressor, byte[] block, int length, boolean atLineStart)
+            throws IOException {
+        byte[] compressed = compressor.compress(block, length);
+        if (this.scanner == null) {
+            return new CompressedBlock(compressed, length, BlockIndex.UNKNOWN_TIME, BlockIndex.UNKNOWN_TIME);
+        }
+        return new CompressedBlock(compressed, length, this.scanner.first(block, length, atLineStart),
+                this.scanner.last(block, length));
+    }
+
+    private static void write(OutputStream out, BlockIndex index, CompressedBlock block) throws IOException {
+        out.write(block.data);
+        if (index != null) {
+            index.add(block.rawLength, block.data.length, block.firstTime, block.lastTime);
+        }
+    }
+
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public boolean isIndexed() {
+        return this.scanner != null;
+    }
+
+    private static class CompressedBlock {
+        private final byte[] data;
+        private final int rawLength;
+        private final long firstTime;
+        private final long lastTime;
+
+        CompressedBlock(byte[] data, int rawLength, long firstTime, long lastTime) {
+            this.data = data;
+            this.rawLength = rawLength;
+            this.firstTime = firstTime;
+            this.lastTime = lastTime;
+        }
+    }
+}
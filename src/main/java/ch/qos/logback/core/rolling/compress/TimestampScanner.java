@@ -0,0 +1,89 @@
+package ch.qos.logback.core.rolling.compress;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+
+// Finds the time of the first and the last line of a block that carry a timestamp. Only lines near both ends
+// are parsed, continuation lines such as stack traces are skipped.
+public class TimestampScanner {
+
+    public static final String DEFAULT_PATTERN = "yyyy-MM-dd HH:mm:ss,SSS";
+
+    // How many lines are tried from each end, and how far into a line the timestamp may start, e.g. after '['.
+    private static final int MAX_LINES = 64;
+    private static final int MAX_SKIP = 8;
+    private static final int MAX_LINE_PREFIX = 64;
+
+    private final DateTimeFormatter formatter;
+
+    public TimestampScanner(String pattern) {
+        this.formatter = DateTimeFormatter.ofPattern(pattern == null ? DEFAULT_PATTERN : pattern)
+                .withZone(ZoneId.systemDefault());
+    }
+
+    // A block that does not start at a line start begins with the tail of the previous block's last line.
+    public long first(byte[] data, int length, boolean atLineStart) {
+        int start = atLineStart ? 0 : nextLine(data, 0, length);
+        for (int lines = 0; start < length && lines < MAX_LINES; lines++) {
+            long time = parse(data, start, length);
+            if (time != BlockIndex.UNKNOWN_TIME) {
+                return time;
+            }
+            start = nextLine(data, start, length);
+        }
+        return BlockIndex.UNKNOWN_TIME;
+    }
+
+    public long last(byte[] data, int length) {
+        int end = length;
+        for (int lines = 0; end > 0 && lines < MAX_LINES; lines++) {
+            int start = lineStart(data, end - 1);
+            long time = parse(data, start, end);
+            if (time != BlockIndex.UNKNOWN_TIME) {
+                return time;
+            }
+            end = start;
+        }
+        return BlockIndex.UNKNOWN_TIME;
+    }
+
+    private static int nextLine(byte[] data, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    // The start of the line that ends at or after position, ignoring the newline at position itself.
+    private static int lineStart(byte[] data, int position) {
+        for (int i = position - 1; i >= 0; i--) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private long parse(byte[] data, int start, int end) {
+        String prefix = new String(data, start, Math.min(end - start, MAX_LINE_PREFIX), StandardCharsets.ISO_8859_1);
+        for (int skip = 0; skip <= MAX_SKIP && skip < prefix.length(); skip++) {
+            ParsePosition position = new ParsePosition(skip);
+            // parseUnresolved reports a mismatch through the position instead of an exception.
+            if (this.formatter.parseUnresolved(prefix, position) != null && position.getErrorIndex() < 0) {
+                try {
+                    TemporalAccessor parsed = this.formatter.parse(prefix.substring(skip, position.getIndex()));
+                    return Instant.from(parsed).toEpochMilli();
+                } catch (RuntimeException e) {
+                    return BlockIndex.UNKNOWN_TIME;
+                }
+            }
+        }
+        return BlockIndex.UNKNOWN_TIME;
+    }
+}
@@ -0,0 +1,23 @@
+package ch.qos.logback.core.rolling.compress;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// Every block becomes a zstd frame; zstd decodes concatenated frames as one stream.
+public class ZstdBlockCompressor implements BlockCompressor {
+
+    private static final int LEVEL = 3;
+
+    @Override
+    public byte[] compress(byte[] data, int length) {
+        return Zstd.compress(length == data.length ? data : Arrays.copyOf(data, length), LEVEL);
+    }
+
+    static InputStream newInputStream(InputStream in) throws IOException {
+        return new ZstdInputStream(in);
+    }
+}
@@ -0,0 +1,93 @@
+package ch.qos.logback.core.rolling.executor;
+
+// An AIMD limit on how many uploads of a lane run at the same time. While uploads use most of the limit and their
+// latency stays near the best seen, every success adds 1/limit, about one more upload per round. Throttling or a
+// timeout halves the limit, at most once per round, so the burst of failures one overload causes counts once.
+// Latency well above the best seen shrinks the limit gently before S3 starts to throttle.
+public class AdaptiveConcurrencyLimit {
+
+    public static final int DEFAULT_MAX_LIMIT = 32;
+
+    private static final double BACKOFF_RATIO = 0.5;
+    private static final double LATENCY_BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 1.5;
+    // Small uploads are dominated by request overhead, latency is compared per byte only above this size.
+    private static final long MIN_SAMPLE_BYTES = 256 * 1024;
+    // How quickly the recent latency follows new samples, and how slowly the best one forgets.
+    private static final double RECENT_WEIGHT = 0.2;
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private double baselineNanosPerByte;
+    private double recentNanosPerByte;
+    private double roundNanos;
+    private long lastBackoffNanos;
+    private long backoffs;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+        this.baselineNanosPerByte = 0;
+        this.recentNanosPerByte = 0;
+        this.roundNanos = 0;
+        this.lastBackoffNanos = System.nanoTime();
+        this.backoffs = 0;
+    }
+
+    public synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public synchronized long getBackoffs() {
+        return backoffs;
+    }
+
+    // inFlight counts the uploads running when this one finished, including it.
+    public synchronized void onSuccess(long bytes, long latencyNanos, int inFlight) {
+        double nanosPerByte = (double) latencyNanos / Math.max(bytes, MIN_SAMPLE_BYTES);
+        if (this.baselineNanosPerByte == 0 || nanosPerByte < this.baselineNanosPerByte) {
+            this.baselineNanosPerByte = nanosPerByte;
+        } else {
+            // A network that got slower for good becomes the new normal after a while.
+            this.baselineNanosPerByte += (nanosPerByte - this.baselineNanosPerByte) * BASELINE_DRIFT;
+        }
+        this.recentNanosPerByte = this.recentNanosPerByte == 0 ? nanosPerByte
+                : this.recentNanosPerByte + (nanosPerByte - this.recentNanosPerByte) * RECENT_WEIGHT;
+        this.roundNanos = this.roundNanos == 0 ? latencyNanos
+                : this.roundNanos + (latencyNanos - this.roundNanos) * RECENT_WEIGHT;
+
+        if (this.recentNanosPerByte > this.baselineNanosPerByte * LATENCY_TOLERANCE) {
+            backOff(LATENCY_BACKOFF_RATIO);
+        } else if (inFlight * 2 >= this.limit) {
+            // An idle lane learns nothing about S3, its limit only grows when uploads actually use it.
+            this.limit = Math.min(this.limit + 1 / this.limit, this.maxLimit);
+        }
+    }
+
+    // A 503 SlowDown, a 429 or a timeout.
+    public synchronized void onThrottled() {
+        backOff(BACKOFF_RATIO);
+    }
+
+    private void backOff(double ratio) {
+        long now = System.nanoTime();
+        if (now - this.lastBackoffNanos < this.roundNanos) {
+            return;
+        }
+        this.lastBackoffNanos = now;
+        this.limit = Math.max(this.limit * ratio, this.minLimit);
+        this.backoffs++;
+    }
+}
@@ -0,0 +1,15 @@
+package ch.qos.logback.core.rolling.executor;
+
+import java.util.concurrent.CompletableFuture;
+
+// A task whose work goes on after it hands back control, for example an upload driven by a non-blocking client.
+// The lane keeps the task's slot until the returned future completes, but the worker thread moves on at once.
+public interface AsyncTask extends Runnable {
+
+    CompletableFuture<?> runAsync();
+
+    @Override
+    default void run() {
+        runAsync().join();
+    }
+}
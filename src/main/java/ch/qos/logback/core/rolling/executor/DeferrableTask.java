@@ -0,0 +1,8 @@
+package ch.qos.logback.core.rolling.executor;
+
+// A task that tasks queued after it may overtake, for at most getDeferNanos() after it was queued. Other tasks
+// keep their arrival order.
+public interface DeferrableTask {
+
+    long getDeferNanos();
+}
@@ -0,0 +1,133 @@
+package ch.qos.logback.core.rolling.executor;
+
+import ch.qos.logback.core.spi.ContextAware;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+// Spilled upload entries in arrival order. The first 8 bytes hold the position of the first entry not taken yet,
+// so entries taken before a restart are not replayed.
+public class SpillFile {
+
+    private static final int HEADER_SIZE = 8;
+
+    private final File file;
+    private final ContextAware status;
+
+    private RandomAccessFile raf;
+    private long readPosition;
+    private int size;
+
+    public SpillFile(File file, ContextAware status) {
+        this.file = file;
+        this.status = status;
+        this.raf = null;
+        this.readPosition = HEADER_SIZE;
+        this.size = 0;
+    }
+
+    public synchronized void open() throws IOException {
+        File parent = this.file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        this.raf = new RandomAccessFile(this.file, "rw");
+        if (this.raf.length() < HEADER_SIZE) {
+            this.raf.setLength(0);
+            this.raf.writeLong(HEADER_SIZE);
+        }
+        this.raf.seek(0);
+        this.readPosition = this.raf.readLong();
+        if (this.readPosition < HEADER_SIZE || this.readPosition > this.raf.length()) {
+            this.readPosition = HEADER_SIZE;
+        }
+
+        this.size = 0;
+        this.raf.seek(this.readPosition);
+        while (this.raf.getFilePointer() < this.raf.length()) {
+            this.raf.readUTF();
+            this.size++;
+        }
+    }
+
+    // The entries not taken yet, read without opening the file for writing.
+    public static List<String> readEntries(File file) throws IOException {
+        List<String> entries = new ArrayList<>();
+        if (!file.exists()) {
+            return entries;
+        }
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (in.length() < HEADER_SIZE) {
+                return entries;
+            }
+            long position = in.readLong();
+            in.seek(position < HEADER_SIZE || position > in.length() ? HEADER_SIZE : position);
+            while (in.getFilePointer() < in.length()) {
+                entries.add(in.readUTF());
+            }
+        }
+        return entries;
+    }
+
+    public synchronized void append(String entry) throws IOException {
+        this.raf.seek(this.raf.length());
+        this.raf.writeUTF(entry);
+        this.size++;
+    }
+
+    // The first entry, which stays in the file until remove().
+    public synchronized String peek() throws IOException {
+        if (this.size == 0) {
+            return null;
+        }
+        this.raf.seek(this.readPosition);
+        return this.raf.readUTF();
+    }
+
+    public synchronized void remove() throws IOException {
+        if (this.size == 0) {
+            return;
+        }
+        this.raf.seek(this.readPosition);
+        this.raf.skipBytes(this.raf.readUnsignedShort());
+        this.size--;
+
+        if (this.size == 0) {
+            this.raf.setLength(HEADER_SIZE);
+            this.readPosition = HEADER_SIZE;
+        } else {
+            this.readPosition = this.raf.getFilePointer();
+        }
+        this.raf.seek(0);
+        this.raf.writeLong(this.readPosition);
+    }
+
+    public synchronized String poll() throws IOException {
+        String entry = peek();
+        remove();
+        return entry;
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+
+    public synchronized void close() {
+        if (this.raf != null) {
+            try {
+                this.raf.close();
+            } catch (IOException e) {
+                this.status.addWarn("Could not close the upload spill file " + this.file, e);
+            }
+            this.raf = null;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
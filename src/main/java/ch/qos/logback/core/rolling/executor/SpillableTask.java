@@ -0,0 +1,6 @@
+package ch.qos.logback.core.rolling.executor;
+
+public interface SpillableTask extends Runnable {
+
+    String toSpillEntry();
+}
@@ -0,0 +1,377 @@
+package ch.qos.logback.core.rolling.executor;
+
+import ch.qos.logback.core.spi.ContextAware;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// A bounded upload queue whose tasks run on an UploadWorkerPool, at most `workers` of them at the same time, or
+// as many as an AdaptiveConcurrencyLimit allows, up to its maximum. Tasks given to executeFirst() go before the
+// queue and may use URGENT_SLOTS workers beyond the limit. Several executors can share one pool; an executor
+// created without a pool gets a private one.
+public class UploadExecutor extends AbstractExecutorService {
+
+    public static final int DEFAULT_WORKERS = 1;
+    public static final int DEFAULT_QUEUE_SIZE = 256;
+    public static final int URGENT_SLOTS = 2;
+
+    private final UploadWorkerPool pool;
+    private final boolean ownsPool;
+    private final int workers;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final UploadQueue queue;
+    private final ConcurrentLinkedQueue<Runnable> urgentQueue;
+    private final UploadOverflowPolicy overflowPolicy;
+    private final SpillFile spillFile;
+    private final Function<String, Runnable> spillDecoder;
+    private final ContextAware status;
+
+    private final AtomicInteger activeTasks;
+    private final AtomicLong droppedTasks;
+    private volatile Consumer<Runnable> dropListener;
+
+    private volatile boolean shutdown;
+    private boolean terminated;
+
+    public UploadExecutor(int workers, int queueSize, UploadOverflowPolicy overflowPolicy) {
+        this(workers, queueSize, overflowPolicy, null, null);
+    }
+
+    public UploadExecutor(int workers, int queueSize, UploadOverflowPolicy overflowPolicy,
+                          SpillFile spillFile, Function<String, Runnable> spillDecoder) {
+        this(null, workers, queueSize, overflowPolicy, spillFile, spillDecoder);
+    }
+
+    public UploadExecutor(UploadWorkerPool pool, int workers, int queueSize, UploadOverflowPolicy overflowPolicy,
+                          SpillFile spillFile, Function<String, Runnable> spillDecoder) {
+        this(pool, workers, null, queueSize, overflowPolicy, spillFile, spillDecoder, new ContextAwareBase());
+    }
+
+    // With a concurrency limit, workers is ignored and the pool is sized for the limit's maximum.
+    public UploadExecutor(UploadWorkerPool pool, int workers, AdaptiveConcurrencyLimit concurrencyLimit, int queueSize,
+                          UploadOverflowPolicy overflowPolicy, SpillFile spillFile,
+                          Function<String, Runnable> spillDecoder, ContextAware status) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.workers = concurrencyLimit != null ? concurrencyLimit.getMaxLimit() : Math.max(workers, 1);
+        this.ownsPool = pool == null;
+        this.pool = pool == null ? new UploadWorkerPool(this.workers) : pool;
+        this.queue = new UploadQueue(queueSize);
+        this.urgentQueue = new ConcurrentLinkedQueue<>();
+
+        this.overflowPolicy = overflowPolicy == null ? UploadOverflowPolicy.BLOCK : overflowPolicy;
+        this.spillFile = this.overflowPolicy == UploadOverflowPolicy.SPILL_TO_DISK ? spillFile : null;
+        this.spillDecoder = spillDecoder;
+        this.status = status;
+        this.activeTasks = new AtomicInteger();
+        this.droppedTasks = new AtomicLong();
+        this.dropListener = null;
+        this.shutdown = false;
+        this.terminated = false;
+
+        if (this.spillFile != null) {
+            try {
+                this.spillFile.open();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open upload spill file " + this.spillFile.getFile(), e);
+            }
+        }
+
+        this.pool.register(this);
+        drainSpillFile();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (this.shutdown) {
+            throw new RejectedExecutionException("Upload executor has been shut down");
+        }
+
+        if (this.spillFile != null && task instanceof SpillableTask && this.spillFile.size() > 0) {
+            // Keep FIFO order: nothing may overtake what is already waiting on disk.
+            spill((SpillableTask) task);
+            drainSpillFile();
+            return;
+        }
+
+        if (!this.queue.offer(task)) {
+            onOverflow(task);
+        }
+        this.pool.signal();
+    }
+
+    // Queues a task made by a task of this executor, such as the upload queued by a hand-off. Its place was taken
+    // under the overflow policy when the task that made it was queued, so it is neither blocked nor dropped, and it
+    // cannot hold a worker waiting for a slot only workers free.
+    public void executeAdmitted(Runnable task) {
+        if (this.shutdown) {
+            throw new RejectedExecutionException("Upload executor has been shut down");
+        }
+
+        if (this.spillFile != null && task instanceof SpillableTask && this.spillFile.size() > 0) {
+            spill((SpillableTask) task);
+            drainSpillFile();
+            return;
+        }
+
+        this.queue.put(task);
+        this.pool.signal();
+    }
+
+    // Runs the task before everything already queued, even when the queue is full and even when every worker the
+    // limit allows is busy with a long upload. Meant for the few final uploads made while shutting down, which are
+    // accepted until the executor is shut down.
+    public void executeFirst(Runnable task) {
+        if (this.shutdown) {
+            throw new RejectedExecutionException("Upload executor has been shut down");
+        }
+        this.urgentQueue.add(task);
+        this.pool.signal();
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+        checkTerminated();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown = true;
+        List<Runnable> pending = new ArrayList<>();
+        Runnable urgent;
+        while ((urgent = this.urgentQueue.poll()) != null) {
+            pending.add(urgent);
+        }
+        this.queue.drainTo(pending);
+        checkTerminated();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return terminated;
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!this.terminated) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    public UploadQueue getQueue() {
+        return queue;
+    }
+
+    public int getQueuedTasks() {
+        return this.urgentQueue.size() + this.queue.size();
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    // How many tasks may run at the same time right now.
+    public int getCurrentLimit() {
+        return this.concurrencyLimit != null ? this.concurrencyLimit.getLimit() : this.workers;
+    }
+
+    public int getActiveCount() {
+        return activeTasks.get();
+    }
+
+    public UploadWorkerPool getPool() {
+        return pool;
+    }
+
+    public UploadOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public long getDroppedTasks() {
+        return droppedTasks.get();
+    }
+
+    public void setDropListener(Consumer<Runnable> dropListener) {
+        this.dropListener = dropListener;
+    }
+
+    public int getSpilledTasks() {
+        return this.spillFile == null ? 0 : this.spillFile.size();
+    }
+
+    // Called by the pool while it holds its lock, so the limit check and the poll cannot interleave.
+    boolean hasRunnableTask() {
+        int active = this.activeTasks.get();
+        int limit = getCurrentLimit();
+        return (active < limit + URGENT_SLOTS && !this.urgentQueue.isEmpty())
+                || (active < limit && !this.queue.isEmpty());
+    }
+
+    Runnable pollTask() {
+        int active = this.activeTasks.get();
+        int limit = getCurrentLimit();
+        Runnable task = active < limit + URGENT_SLOTS ? this.urgentQueue.poll() : null;
+        if (task == null && active < limit) {
+            task = this.queue.poll();
+        }
+        if (task != null) {
+            this.activeTasks.incrementAndGet();
+        }
+        return task;
+    }
+
+    void runTask(Runnable task) {
+        CompletableFuture<?> pending = null;
+        try {
+            if (task instanceof AsyncTask) {
+                pending = ((AsyncTask) task).runAsync();
+            } else {
+                task.run();
+            }
+        } catch (Throwable t) {
+            this.status.addError("Upload task " + task + " failed", t);
+        }
+
+        if (pending == null || pending.isDone()) {
+            taskFinished();
+        } else {
+            pending.whenComplete((result, ex) -> {
+                taskFinished();
+                // The slot frees up on a client thread, no worker is going to look at the lane by itself.
+                this.pool.signal();
+            });
+        }
+    }
+
+    private void taskFinished() {
+        this.activeTasks.decrementAndGet();
+        drainSpillFile();
+        checkTerminated();
+    }
+
+    private synchronized void checkTerminated() {
+        if (this.terminated || !this.shutdown || !this.urgentQueue.isEmpty() || !this.queue.isEmpty()
+                || this.activeTasks.get() > 0) {
+            return;
+        }
+
+        this.terminated = true;
+        this.pool.unregister(this);
+        if (this.ownsPool) {
+            this.pool.shutdown();
+        }
+        if (this.spillFile != null) {
+            this.spillFile.close();
+        }
+        notifyAll();
+    }
+
+    private void onOverflow(Runnable task) {
+        switch (this.overflowPolicy) {
+            case DROP_OLDEST:
+                Runnable oldest = this.queue.pollOldest();
+                if (oldest != null) {
+                    this.droppedTasks.incrementAndGet();
+                    this.status.addWarn("Upload queue is full, dropping the oldest pending upload " + oldest);
+                    Consumer<Runnable> listener = this.dropListener;
+                    if (listener != null) {
+                        listener.accept(oldest);
+                    }
+                }
+                if (!this.queue.offer(task)) {
+                    onOverflow(task);
+                }
+                break;
+            case SPILL_TO_DISK:
+                if (this.spillFile != null && task instanceof SpillableTask) {
+                    spill((SpillableTask) task);
+                    break;
+                }
+                block(task);
+                break;
+            case BLOCK:
+            default:
+                block(task);
+                break;
+        }
+    }
+
+    private void block(Runnable task) {
+        try {
+            while (!this.queue.offer(task, 1, TimeUnit.SECONDS)) {
+                if (this.shutdown) {
+                    throw new RejectedExecutionException("Upload executor has been shut down");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for upload queue space", e);
+        }
+    }
+
+    private void spill(SpillableTask task) {
+        try {
+            this.spillFile.append(task.toSpillEntry());
+        } catch (IOException e) {
+            this.status.addError("Could not spill " + task + " to " + this.spillFile.getFile() + ", waiting for room"
+                    + " in the upload queue instead", e);
+            block(task);
+        }
+    }
+
+    private void drainSpillFile() {
+        if (this.spillFile == null || this.spillDecoder == null) {
+            return;
+        }
+
+        boolean drained = false;
+        synchronized (this.spillFile) {
+            try {
+                while (this.spillFile.size() > 0 && this.queue.remainingCapacity() > 0 && !this.shutdown) {
+                    Runnable task = this.spillDecoder.apply(this.spillFile.peek());
+                    // An entry leaves the file only once it is queued, it is never lost nor moved behind newer ones.
+                    if (task != null && !this.queue.offer(task)) {
+                        // A concurrent execute() took the free slot, the task stays first on disk.
+                        break;
+                    }
+                    this.spillFile.remove();
+                    if (task != null) {
+                        drained = true;
+                    }
+                }
+            } catch (IOException e) {
+                this.status.addError("Could not read the upload spill file " + this.spillFile.getFile(), e);
+            }
+        }
+        if (drained) {
+            this.pool.signal();
+        }
+    }
+}
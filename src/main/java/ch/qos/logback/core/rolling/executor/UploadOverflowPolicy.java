@@ -0,0 +1,6 @@
+package ch.qos.logback.core.rolling.executor;
+
+public enum UploadOverflowPolicy {
+
+    BLOCK, DROP_OLDEST, SPILL_TO_DISK
+}
@@ -0,0 +1,174 @@
+package ch.qos.logback.core.rolling.executor;
+
+import java.util.Collection;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The bounded queue of an UploadExecutor. Tasks run in the order of the time they were queued plus their defer
+// time, so a DeferrableTask lets newer tasks go first but is never held back longer than its defer time: once that
+// has passed, everything queued after it waits behind it.
+public class UploadQueue {
+
+    private final int capacity;
+    private final PriorityQueue<Entry> entries;
+    private final ReentrantLock lock;
+    private final Condition notFull;
+    private long sequence;
+
+    public UploadQueue(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.entries = new PriorityQueue<>();
+        this.lock = new ReentrantLock();
+        this.notFull = this.lock.newCondition();
+        this.sequence = 0;
+    }
+
+    public boolean offer(Runnable task) {
+        long defer = deferNanos(task);
+        this.lock.lock();
+        try {
+            if (this.entries.size() >= this.capacity) {
+                return false;
+            }
+            add(task, defer);
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // Queues the task even when the queue is full, for tasks whose place was already taken by the one that made them.
+    public void put(Runnable task) {
+        long defer = deferNanos(task);
+        this.lock.lock();
+        try {
+            add(task, defer);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        long defer = deferNanos(task);
+        long remaining = unit.toNanos(timeout);
+        this.lock.lockInterruptibly();
+        try {
+            while (this.entries.size() >= this.capacity) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = this.notFull.awaitNanos(remaining);
+            }
+            add(task, defer);
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public Runnable poll() {
+        this.lock.lock();
+        try {
+            Entry entry = this.entries.poll();
+            if (entry == null) {
+                return null;
+            }
+            this.notFull.signal();
+            return entry.task;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // The task queued first, whatever its turn.
+    public Runnable pollOldest() {
+        this.lock.lock();
+        try {
+            Entry oldest = null;
+            for (Entry entry : this.entries) {
+                if (oldest == null || entry.sequence < oldest.sequence) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return null;
+            }
+            this.entries.remove(oldest);
+            this.notFull.signal();
+            return oldest.task;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // In turn order.
+    public int drainTo(Collection<? super Runnable> target) {
+        this.lock.lock();
+        try {
+            int count = 0;
+            Entry entry;
+            while ((entry = this.entries.poll()) != null) {
+                target.add(entry.task);
+                count++;
+            }
+            this.notFull.signalAll();
+            return count;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.entries.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int remainingCapacity() {
+        return this.capacity - size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Asked outside the lock, a task may look at its file to decide.
+    private static long deferNanos(Runnable task) {
+        return task instanceof DeferrableTask ? Math.max(((DeferrableTask) task).getDeferNanos(), 0) : 0;
+    }
+
+    private void add(Runnable task, long defer) {
+        this.entries.add(new Entry(task, System.nanoTime() + defer, this.sequence++));
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final Runnable task;
+        private final long turnNanos;
+        private final long sequence;
+
+        Entry(Runnable task, long turnNanos, long sequence) {
+            this.task = task;
+            this.turnNanos = turnNanos;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            // nanoTime values are only comparable by their difference.
+            long difference = this.turnNanos - other.turnNanos;
+            if (difference != 0) {
+                return difference < 0 ? -1 : 1;
+            }
+            return Long.compare(this.sequence, other.sequence);
+        }
+    }
+}
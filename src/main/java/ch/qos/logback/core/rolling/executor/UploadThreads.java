@@ -0,0 +1,24 @@
+package ch.qos.logback.core.rolling.executor;
+
+// Creates the threads that upload, wait for uploads and shut down. On Java 21 and later the multi-release jar
+// replaces this class with one that can start virtual threads; on older runtimes they are always platform threads.
+public final class UploadThreads {
+
+    private UploadThreads() {
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        return false;
+    }
+
+    public static Thread newThread(Runnable task, String name, boolean daemon) {
+        return newThread(task, name, daemon, false);
+    }
+
+    // Virtual threads are always daemon threads, whatever daemon says.
+    public static Thread newThread(Runnable task, String name, boolean daemon, boolean virtual) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(daemon);
+        return thread;
+    }
+}
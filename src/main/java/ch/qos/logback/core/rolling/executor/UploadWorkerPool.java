@@ -0,0 +1,251 @@
+package ch.qos.logback.core.rolling.executor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Worker threads shared by several UploadExecutor lanes. Workers visit the lanes round-robin, so one appender
+// with a long backlog cannot keep the uploads of the others waiting. Idle workers exit after a while.
+// Workers are not daemon threads, so uploads in flight keep the JVM alive. Virtual workers are always daemon
+// threads; while they have uploads queued or running, one platform thread that is not a daemon stands in for them.
+public class UploadWorkerPool {
+
+    public static final long DEFAULT_KEEP_ALIVE_SECONDS = 60;
+
+    private static final long JVM_KEEP_ALIVE_POLL_MILLIS = 100;
+
+    private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger();
+
+    private final String name;
+    private final long keepAliveNanos;
+    private final boolean virtualThreads;
+    private final List<UploadExecutor> lanes;
+    private final ReentrantLock lock;
+    private final Condition workAvailable;
+
+    private int maxWorkers;
+    private int workers;
+    private int idleWorkers;
+    private int pendingSignals;
+    private int nextLane;
+    private int threadSequence;
+    private boolean shutdown;
+    private boolean jvmKeptAlive;
+
+    public UploadWorkerPool(int maxWorkers) {
+        this(maxWorkers, false);
+    }
+
+    public UploadWorkerPool(int maxWorkers, boolean virtualThreads) {
+        this(maxWorkers, DEFAULT_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, virtualThreads);
+    }
+
+    public UploadWorkerPool(int maxWorkers, long keepAlive, TimeUnit unit, boolean virtualThreads) {
+        this.name = "s3-upload-" + POOL_SEQUENCE.incrementAndGet();
+        this.keepAliveNanos = unit.toNanos(keepAlive);
+        this.virtualThreads = virtualThreads;
+        this.lanes = new CopyOnWriteArrayList<>();
+        this.lock = new ReentrantLock();
+        this.workAvailable = this.lock.newCondition();
+        this.maxWorkers = Math.max(maxWorkers, 1);
+        this.workers = 0;
+        this.idleWorkers = 0;
+        this.pendingSignals = 0;
+        this.nextLane = 0;
+        this.threadSequence = 0;
+        this.shutdown = false;
+        this.jvmKeptAlive = false;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // The pool never runs more workers than the largest lane asked for, plus its urgent slots.
+    public void ensureWorkers(int workers) {
+        this.lock.lock();
+        try {
+            this.maxWorkers = Math.max(this.maxWorkers, workers);
+        } finally {
+            this.lock.unlock();
+        }
+        signal();
+    }
+
+    public int getMaxWorkers() {
+        this.lock.lock();
+        try {
+            return maxWorkers;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getWorkers() {
+        this.lock.lock();
+        try {
+            return workers;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    public void shutdown() {
+        this.lock.lock();
+        try {
+            this.shutdown = true;
+            this.workAvailable.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    void register(UploadExecutor lane) {
+        this.lanes.add(lane);
+        ensureWorkers(lane.getWorkers() + UploadExecutor.URGENT_SLOTS);
+    }
+
+    void unregister(UploadExecutor lane) {
+        this.lanes.remove(lane);
+    }
+
+    // Called whenever a lane gets a task or a lane's running task finished.
+    void signal() {
+        this.lock.lock();
+        try {
+            if (this.shutdown) {
+                return;
+            }
+            keepJvmAlive();
+            // Wake an idle worker that is not woken yet, otherwise start a new one.
+            if (this.idleWorkers > this.pendingSignals) {
+                this.pendingSignals++;
+                this.workAvailable.signal();
+            } else if (this.workers < this.maxWorkers && hasRunnableLane()) {
+                startWorker();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void startWorker() {
+        this.workers++;
+        Thread thread = UploadThreads.newThread(this::work, this.name + "-worker-" + (++this.threadSequence), false,
+                this.virtualThreads);
+        thread.start();
+    }
+
+    private void keepJvmAlive() {
+        if (!this.virtualThreads || this.jvmKeptAlive || !hasPendingLane()) {
+            return;
+        }
+        this.jvmKeptAlive = true;
+        UploadThreads.newThread(this::holdJvm, this.name + "-keep-alive", false).start();
+    }
+
+    private void holdJvm() {
+        while (true) {
+            try {
+                Thread.sleep(JVM_KEEP_ALIVE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                // Checked below like any other wake-up.
+            }
+            this.lock.lock();
+            try {
+                if (this.shutdown || !hasPendingLane()) {
+                    this.jvmKeptAlive = false;
+                    return;
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    private void work() {
+        while (true) {
+            UploadExecutor lane;
+            Runnable task;
+
+            this.lock.lock();
+            try {
+                long waitNanos = this.keepAliveNanos;
+                while (true) {
+                    lane = nextRunnableLane();
+                    task = lane == null ? null : lane.pollTask();
+                    if (task != null) {
+                        break;
+                    }
+                    if (lane != null) {
+                        // The lane was emptied by shutdownNow in the meantime, look again.
+                        continue;
+                    }
+                    if (this.shutdown || waitNanos <= 0) {
+                        this.workers--;
+                        return;
+                    }
+                    this.idleWorkers++;
+                    try {
+                        waitNanos = this.workAvailable.awaitNanos(waitNanos);
+                    } catch (InterruptedException e) {
+                        waitNanos = 0;
+                    } finally {
+                        this.idleWorkers--;
+                        if (this.pendingSignals > 0) {
+                            this.pendingSignals--;
+                        }
+                    }
+                }
+            } finally {
+                this.lock.unlock();
+            }
+
+            lane.runTask(task);
+            signal();
+        }
+    }
+
+    private boolean hasPendingLane() {
+        for (UploadExecutor lane : this.lanes) {
+            if (lane.getActiveCount() > 0 || lane.getQueuedTasks() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasRunnableLane() {
+        for (UploadExecutor lane : this.lanes) {
+            if (lane.hasRunnableTask()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private UploadExecutor nextRunnableLane() {
+        int size = this.lanes.size();
+        for (int i = 0; i < size; i++) {
+            int index = (this.nextLane + i) % size;
+            UploadExecutor lane;
+            try {
+                lane = this.lanes.get(index);
+            } catch (IndexOutOfBoundsException e) {
+                return null;
+            }
+            if (lane.hasRunnableTask()) {
+                this.nextLane = (index + 1) % size;
+                return lane;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package ch.qos.logback.core.rolling.io;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// One direct allocation cut into equal blocks that move between a free and a sealed queue. The appender fills
+// free blocks and seals them, the shipper drains the sealed ones in order and hands them back.
+public class BlockRing {
+
+    private final int blockSize;
+    private final int blockCount;
+    private final BlockingQueue<Block> free;
+    private final BlockingQueue<Block> sealed;
+
+    public BlockRing(long capacity, int blockSize) {
+        this.blockSize = blockSize;
+        this.blockCount = (int) Math.min(Math.max(capacity / blockSize, 2), Integer.MAX_VALUE / blockSize);
+        this.free = new ArrayBlockingQueue<>(this.blockCount);
+        this.sealed = new ArrayBlockingQueue<>(this.blockCount);
+
+        ByteBuffer memory = ByteBuffer.allocateDirect(this.blockCount * blockSize);
+        for (int i = 0; i < this.blockCount; i++) {
+            memory.limit((i + 1) * blockSize).position(i * blockSize);
+            this.free.add(new Block(memory.slice()));
+        }
+    }
+
+    public Block acquire() throws InterruptedException {
+        return this.free.take();
+    }
+
+    public Block tryAcquire() {
+        return this.free.poll();
+    }
+
+    public void seal(Block block) {
+        this.sealed.add(block);
+    }
+
+    public Block take(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.sealed.poll(timeout, unit);
+    }
+
+    public Block poll() {
+        return this.sealed.poll();
+    }
+
+    public void release(Block block) {
+        block.buffer.clear();
+        block.date = null;
+        block.index = 0;
+        block.last = false;
+        this.free.add(block);
+    }
+
+    public int getFreeBlocks() {
+        return this.free.size();
+    }
+
+    public int getSealedBlocks() {
+        return this.sealed.size();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    // Filled up to its position. The object fields are set before sealing and read after taking, the queue
+    // hand-off makes them visible to the shipper, which names the object from its date and index.
+    public static class Block {
+        private final ByteBuffer buffer;
+        private Date date;
+        private int index;
+        private boolean last;
+
+        Block(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        public Date getDate() {
+            return date;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public boolean isLast() {
+            return last;
+        }
+
+        public void setObject(Date date, int index, boolean last) {
+            this.date = date;
+            this.index = index;
+            this.last = last;
+        }
+    }
+}
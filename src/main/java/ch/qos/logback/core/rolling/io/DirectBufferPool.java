@@ -0,0 +1,54 @@
+package ch.qos.logback.core.rolling.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+// Off-heap buffers that upload bodies read file data into. Buffers are allocated on first use and up to
+// maxPooled of them are kept for the next upload, so steady uploading allocates nothing.
+public class DirectBufferPool {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    public static final int DEFAULT_MAX_POOLED = 16;
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free;
+
+    public DirectBufferPool() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED);
+    }
+
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.free = new ArrayDeque<>(maxPooled);
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = this.free.pollFirst();
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(this.bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        synchronized (this) {
+            if (this.free.size() < this.maxPooled) {
+                this.free.offerFirst(buffer);
+            }
+        }
+    }
+
+    public synchronized int getPooled() {
+        return this.free.size();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,147 @@
+package ch.qos.logback.core.rolling.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+// Reads a region of a file through its FileChannel, either from a memory mapping or through a pooled direct
+// buffer, so the bytes go from the page cache straight into the HTTP client's array without heap buffers in
+// between. Mark and reset only move the position, so the SDK does not have to buffer the body for retries.
+public class FileChannelInputStream extends InputStream {
+
+    // Mappings are made window by window, a multi-GB segment does not need one huge mapping.
+    public static final int MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long end;
+    private final DirectBufferPool pool;
+
+    private ByteBuffer buffer;
+    private long bufferStart;
+    private long position;
+    private long mark;
+    private boolean closed;
+
+    private FileChannelInputStream(File file, long offset, long length, DirectBufferPool pool) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.end = offset + length;
+        this.pool = pool;
+        this.position = offset;
+        this.mark = offset;
+    }
+
+    public static FileChannelInputStream direct(File file, long offset, long length, DirectBufferPool pool)
+            throws IOException {
+        return new FileChannelInputStream(file, offset, length, pool);
+    }
+
+    public static FileChannelInputStream mapped(File file, long offset, long length) throws IOException {
+        return new FileChannelInputStream(file, offset, length, null);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        int b = this.buffer.get((int) (this.position - this.bufferStart)) & 0xff;
+        this.position++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int index = (int) (this.position - this.bufferStart);
+        int count = Math.min(len, this.buffer.limit() - index);
+        this.buffer.position(index);
+        this.buffer.get(b, off, count);
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(Math.min(n, this.end - this.position), 0);
+        this.position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Math.max(this.end - this.position, 0), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        this.mark = this.position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        this.position = this.mark;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        if (this.pool != null && this.buffer != null) {
+            this.pool.release(this.buffer);
+        }
+        // A mapping is released with its buffer by the GC, there is no public unmap before Java 19.
+        this.buffer = null;
+        this.channel.close();
+    }
+
+    // Makes sure the buffer holds the byte at position, returns false at the end of the region.
+    private boolean fill() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        if (this.position >= this.end) {
+            return false;
+        }
+        if (this.buffer != null && this.position >= this.bufferStart
+                && this.position < this.bufferStart + this.buffer.limit()) {
+            return true;
+        }
+
+        if (this.pool == null) {
+            long size = Math.min(this.end - this.position, MAP_WINDOW_SIZE);
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, size);
+        } else {
+            if (this.buffer == null) {
+                this.buffer = this.pool.acquire();
+            }
+            this.buffer.clear();
+            if (this.end - this.position < this.buffer.capacity()) {
+                this.buffer.limit((int) (this.end - this.position));
+            }
+            while (this.buffer.hasRemaining()) {
+                if (this.channel.read(this.buffer, this.position + this.buffer.position()) < 0) {
+                    break;
+                }
+            }
+            this.buffer.flip();
+        }
+        this.bufferStart = this.position;
+        // The file is shorter than expected, the SDK's length check reports it.
+        return this.buffer.limit() > 0;
+    }
+}
@@ -0,0 +1,6 @@
+package ch.qos.logback.core.rolling.io;
+
+public enum UploadBodyMode {
+
+    FILE, DIRECT, MAPPED
+}
@@ -0,0 +1,207 @@
+package ch.qos.logback.core.rolling.journal;
+
+import ch.qos.logback.core.spi.ContextAware;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Every line is forced to disk before append() or complete() returns, so an upload the journal accepted survives
+// a crash of the machine too. Lines are written once per rolled file, the sync is cheap at that rate.
+public class UploadJournal {
+
+    private static final String PENDING = "P";
+    private static final String DONE = "D";
+    private static final String SEPARATOR = "\t";
+
+    private static final int COMPACT_AFTER_COMPLETIONS = 1024;
+
+    private final File file;
+    private final ContextAware status;
+    private final Map<String, Entry> pending;
+
+    private FileChannel channel;
+    private Writer writer;
+    private int completionsSinceCompaction;
+
+    public UploadJournal(File file, ContextAware status) {
+        this.file = file;
+        this.status = status;
+        this.pending = new LinkedHashMap<>();
+        this.channel = null;
+        this.writer = null;
+        this.completionsSinceCompaction = 0;
+    }
+
+    public synchronized void open() throws IOException {
+        File parent = this.file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        this.pending.clear();
+        if (this.file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(this.file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    readLine(line);
+                }
+            }
+        }
+
+        compact();
+    }
+
+    public synchronized Entry append(String key, String path, String compression) {
+        Entry entry = new Entry(UUID.randomUUID().toString(), key, path, compression);
+        // A final upload queued after close() is still made, it is only not resumed after a crash.
+        if (this.writer == null) {
+            return entry;
+        }
+        this.pending.put(entry.getId(), entry);
+        write(format(entry));
+        return entry;
+    }
+
+    public synchronized void complete(String id) {
+        // Uploads still in flight after a shutdown deadline may finish once the journal is closed; their entries
+        // stay pending on disk and are uploaded again on the next start.
+        if (id == null || this.writer == null || this.pending.remove(id) == null) {
+            return;
+        }
+
+        write(DONE + SEPARATOR + id);
+
+        try {
+            if (this.pending.isEmpty()) {
+                truncate();
+            } else if (++this.completionsSinceCompaction >= COMPACT_AFTER_COMPLETIONS) {
+                compact();
+            }
+        } catch (IOException e) {
+            this.status.addError("Could not compact the upload journal " + this.file, e);
+        }
+    }
+
+    public synchronized List<Entry> getPending() {
+        return new ArrayList<>(this.pending.values());
+    }
+
+    public synchronized void close() {
+        if (this.writer != null) {
+            try {
+                this.writer.close();
+            } catch (IOException e) {
+                this.status.addWarn("Could not close the upload journal " + this.file, e);
+            }
+            this.writer = null;
+            this.channel = null;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private void readLine(String line) {
+        String[] fields = line.split(SEPARATOR, 5);
+        if (PENDING.equals(fields[0]) && fields.length >= 4) {
+            this.pending.put(fields[1], new Entry(fields[1], fields[2], fields[3], fields.length == 5 ? fields[4] : null));
+        } else if (DONE.equals(fields[0]) && fields.length >= 2) {
+            this.pending.remove(fields[1]);
+        }
+    }
+
+    private String format(Entry entry) {
+        String line = PENDING + SEPARATOR + entry.getId() + SEPARATOR + entry.getKey() + SEPARATOR + entry.getPath();
+        return entry.getCompression() == null ? line : line + SEPARATOR + entry.getCompression();
+    }
+
+    private void write(String line) {
+        try {
+            this.writer.write(line);
+            this.writer.write('\n');
+            this.writer.flush();
+            this.channel.force(false);
+        } catch (IOException e) {
+            this.status.addError("Could not write to the upload journal " + this.file, e);
+        }
+    }
+
+    private void truncate() throws IOException {
+        close();
+        openWriter(StandardOpenOption.TRUNCATE_EXISTING);
+        this.channel.force(false);
+        this.completionsSinceCompaction = 0;
+    }
+
+    private void compact() throws IOException {
+        close();
+
+        File compacted = new File(this.file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer lines = new BufferedWriter(Channels.newWriter(out, StandardCharsets.UTF_8.newEncoder(), -1));
+            for (Entry entry : this.pending.values()) {
+                lines.write(format(entry));
+                lines.write('\n');
+            }
+            lines.flush();
+            // The rename must not replace the old journal with a file whose content is not on disk yet.
+            out.force(false);
+        }
+        Files.move(compacted.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        openWriter(StandardOpenOption.APPEND);
+        this.completionsSinceCompaction = 0;
+    }
+
+    private void openWriter(StandardOpenOption mode) throws IOException {
+        this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+        this.writer = new BufferedWriter(Channels.newWriter(this.channel, StandardCharsets.UTF_8.newEncoder(), -1));
+    }
+
+    public static class Entry {
+        private final String id;
+        private final String key;
+        private final String path;
+        private final String compression;
+
+        public Entry(String id, String key, String path, String compression) {
+            this.id = id;
+            this.key = key;
+            this.path = path;
+            this.compression = compression;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getCompression() {
+            return compression;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ch.qos.logback.core.rolling.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bytes per second over a sliding window of one-second slots.
+public class ThroughputMeter {
+
+    public static final int DEFAULT_WINDOW_SECONDS = 60;
+
+    private final int windowSeconds;
+    private final AtomicLongArray slotSeconds;
+    private final AtomicLongArray slotBytes;
+
+    public ThroughputMeter() {
+        this(DEFAULT_WINDOW_SECONDS);
+    }
+
+    public ThroughputMeter(int windowSeconds) {
+        this.windowSeconds = Math.max(windowSeconds, 1);
+        this.slotSeconds = new AtomicLongArray(this.windowSeconds);
+        this.slotBytes = new AtomicLongArray(this.windowSeconds);
+    }
+
+    public void record(long bytes) {
+        long second = currentSecond();
+        int slot = (int) (second % this.windowSeconds);
+        long slotSecond = this.slotSeconds.get(slot);
+        // The thread that moves a slot to the new second resets it. Bytes recorded concurrently by a thread
+        // still in the old second can be lost, which is fine for a rate.
+        if (slotSecond != second && this.slotSeconds.compareAndSet(slot, slotSecond, second)) {
+            this.slotBytes.set(slot, 0);
+        }
+        this.slotBytes.addAndGet(slot, bytes);
+    }
+
+    public double getBytesPerSecond() {
+        long second = currentSecond();
+        long bytes = 0;
+        for (int slot = 0; slot < this.windowSeconds; slot++) {
+            if (second - this.slotSeconds.get(slot) < this.windowSeconds) {
+                bytes += this.slotBytes.get(slot);
+            }
+        }
+        return (double) bytes / this.windowSeconds;
+    }
+
+    private static long currentSecond() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    }
+}
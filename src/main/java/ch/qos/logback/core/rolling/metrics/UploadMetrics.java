@@ -0,0 +1,330 @@
+package ch.qos.logback.core.rolling.metrics;
+
+import ch.qos.logback.core.rolling.executor.UploadExecutor;
+import ch.qos.logback.core.rolling.spool.UploadSpool;
+import ch.qos.logback.core.spi.ContextAware;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class UploadMetrics implements UploadMetricsMBean {
+
+    public static final String JMX_DOMAIN = "ch.qos.logback.core.rolling";
+
+    private final LongAdder uploadsQueued;
+    private final LongAdder uploadsCompleted;
+    private final LongAdder uploadRetries;
+    private final LongAdder uploadFailures;
+    private final LongAdder uploadsDropped;
+    private final LongAdder eventsDropped;
+    private final LongAdder bytesUploaded;
+    private final LongAdder throttledNanos;
+    private final AtomicInteger inFlightUploads;
+    private final ThroughputMeter throughput;
+    private final LatencyHistogram uploadLatency;
+    private final LatencyHistogram compressionLatency;
+
+    private final List<UploadMetricsListener> listeners;
+
+    private volatile UploadExecutor executor;
+    private volatile UploadSpool spool;
+    private volatile ContextAware status;
+    private ObjectName objectName;
+
+    public UploadMetrics() {
+        this.uploadsQueued = new LongAdder();
+        this.uploadsCompleted = new LongAdder();
+        this.uploadRetries = new LongAdder();
+        this.uploadFailures = new LongAdder();
+        this.uploadsDropped = new LongAdder();
+        this.eventsDropped = new LongAdder();
+        this.bytesUploaded = new LongAdder();
+        this.throttledNanos = new LongAdder();
+        this.inFlightUploads = new AtomicInteger();
+        this.throughput = new ThroughputMeter();
+        this.uploadLatency = new LatencyHistogram();
+        this.compressionLatency = new LatencyHistogram();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.executor = null;
+        this.spool = null;
+        this.status = new ContextAwareBase();
+        this.objectName = null;
+    }
+
+    // Where failing listeners and JMX are reported, the status manager of the policy or appender.
+    public void setStatus(ContextAware status) {
+        this.status = status;
+    }
+
+    public void bindExecutor(UploadExecutor executor) {
+        this.executor = executor;
+    }
+
+    public void bindSpool(UploadSpool spool) {
+        this.spool = spool;
+    }
+
+    public void addListener(UploadMetricsListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(UploadMetricsListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    public synchronized void registerMBean(String name) throws JMException {
+        unregisterMBean();
+
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=S3UploadMetrics,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        // A reconfigured logback context registers its new policy under the same name.
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        server.registerMBean(this, objectName);
+        this.objectName = objectName;
+    }
+
+    public synchronized void unregisterMBean() {
+        if (this.objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(this.objectName)) {
+                server.unregisterMBean(this.objectName);
+            }
+        } catch (JMException e) {
+            this.status.addWarn("Could not unregister the upload metrics MBean " + this.objectName, e);
+        }
+        this.objectName = null;
+    }
+
+    public void uploadQueued(String key, long bytes) {
+        this.uploadsQueued.increment();
+        for (UploadMetricsListener listener : this.listeners) {
+            try {
+                listener.onUploadQueued(key, bytes);
+            } catch (RuntimeException e) {
+                this.status.addWarn("Upload metrics listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    public void uploadStarted() {
+        this.inFlightUploads.incrementAndGet();
+    }
+
+    // Every upload that was started ends with either uploadCompleted or uploadAttemptFailed.
+    public void uploadCompleted(String key, long bytes, long nanos) {
+        this.inFlightUploads.decrementAndGet();
+        this.uploadsCompleted.increment();
+        this.bytesUploaded.add(bytes);
+        this.throughput.record(bytes);
+        this.uploadLatency.record(nanos);
+        for (UploadMetricsListener listener : this.listeners) {
+            try {
+                listener.onUploadCompleted(key, bytes, nanos);
+            } catch (RuntimeException e) {
+                this.status.addWarn("Upload metrics listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    public void uploadAttemptFailed() {
+        this.inFlightUploads.decrementAndGet();
+    }
+
+    public void uploadRetry(String key, int attempt, long delayMillis) {
+        this.uploadRetries.increment();
+        for (UploadMetricsListener listener : this.listeners) {
+            try {
+                listener.onUploadRetry(key, attempt, delayMillis);
+            } catch (RuntimeException e) {
+                this.status.addWarn("Upload metrics listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    public void uploadFailed(String key, int attempts) {
+        this.uploadFailures.increment();
+        for (UploadMetricsListener listener : this.listeners) {
+            try {
+                listener.onUploadFailed(key, attempts);
+            } catch (RuntimeException e) {
+                this.status.addWarn("Upload metrics listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    public void uploadDropped(String key) {
+        this.uploadsDropped.increment();
+        for (UploadMetricsListener listener : this.listeners) {
+            try {
+                listener.onUploadDropped(key);
+            } catch (RuntimeException e) {
+                this.status.addWarn("Upload metrics listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    public void eventDropped() {
+        this.eventsDropped.increment();
+    }
+
+    public void compressionCompleted(String fileName, long bytesIn, long bytesOut, long nanos) {
+        this.compressionLatency.record(nanos);
+        for (UploadMetricsListener listener : this.listeners) {
+            try {
+                listener.onCompressionCompleted(fileName, bytesIn, bytesOut, nanos);
+            } catch (RuntimeException e) {
+                this.status.addWarn("Upload metrics listener " + listener + " failed", e);
+            }
+        }
+    }
+
+    public void uploadThrottled(long nanos) {
+        this.throttledNanos.add(nanos);
+    }
+
+    public LatencyHistogram getUploadLatency() {
+        return uploadLatency;
+    }
+
+    public LatencyHistogram getCompressionLatency() {
+        return compressionLatency;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        UploadExecutor executor = this.executor;
+        return executor == null ? 0 : executor.getQueuedTasks() + executor.getSpilledTasks();
+    }
+
+    @Override
+    public int getSpilledUploads() {
+        UploadExecutor executor = this.executor;
+        return executor == null ? 0 : executor.getSpilledTasks();
+    }
+
+    @Override
+    public int getSpooledFiles() {
+        UploadSpool spool = this.spool;
+        return spool == null ? 0 : spool.getFiles();
+    }
+
+    @Override
+    public long getSpooledBytes() {
+        UploadSpool spool = this.spool;
+        return spool == null ? 0 : spool.getBytes();
+    }
+
+    @Override
+    public int getUploadConcurrencyLimit() {
+        UploadExecutor executor = this.executor;
+        return executor == null ? 0 : executor.getCurrentLimit();
+    }
+
+    @Override
+    public int getInFlightUploads() {
+        return inFlightUploads.get();
+    }
+
+    @Override
+    public long getUploadsQueued() {
+        return uploadsQueued.sum();
+    }
+
+    @Override
+    public long getUploadsCompleted() {
+        return uploadsCompleted.sum();
+    }
+
+    @Override
+    public long getUploadRetries() {
+        return uploadRetries.sum();
+    }
+
+    @Override
+    public long getUploadFailures() {
+        return uploadFailures.sum();
+    }
+
+    @Override
+    public long getUploadsDropped() {
+        return uploadsDropped.sum();
+    }
+
+    @Override
+    public long getEventsDropped() {
+        return eventsDropped.sum();
+    }
+
+    @Override
+    public long getBytesUploaded() {
+        return bytesUploaded.sum();
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return throughput.getBytesPerSecond();
+    }
+
+    @Override
+    public long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos.sum());
+    }
+
+    @Override
+    public long getUploadLatencyP50() {
+        return uploadLatency.getPercentile(50, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getUploadLatencyP95() {
+        return uploadLatency.getPercentile(95, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getUploadLatencyP99() {
+        return uploadLatency.getPercentile(99, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getUploadLatencyMax() {
+        return uploadLatency.getMax(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getCompressionsCompleted() {
+        return compressionLatency.getCount();
+    }
+
+    @Override
+    public long getCompressionLatencyP50() {
+        return compressionLatency.getPercentile(50, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getCompressionLatencyP95() {
+        return compressionLatency.getPercentile(95, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getCompressionLatencyP99() {
+        return compressionLatency.getPercentile(99, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getCompressionLatencyMax() {
+        return compressionLatency.getMax(TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,24 @@
+package ch.qos.logback.core.rolling.metrics;
+
+// Receives every upload pipeline event, for example to feed a Micrometer registry.
+// Called on the upload threads, so implementations must be thread-safe and should return quickly.
+public interface UploadMetricsListener {
+
+    default void onUploadQueued(String key, long bytes) {
+    }
+
+    default void onUploadCompleted(String key, long bytes, long nanos) {
+    }
+
+    default void onUploadRetry(String key, int attempt, long delayMillis) {
+    }
+
+    default void onUploadFailed(String key, int attempts) {
+    }
+
+    default void onUploadDropped(String key) {
+    }
+
+    default void onCompressionCompleted(String fileName, long bytesIn, long bytesOut, long nanos) {
+    }
+}
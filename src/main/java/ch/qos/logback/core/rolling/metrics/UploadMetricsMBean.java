@@ -0,0 +1,53 @@
+package ch.qos.logback.core.rolling.metrics;
+
+// Latencies are in milliseconds and cover everything since start; bytes per second covers the last minute.
+public interface UploadMetricsMBean {
+
+    int getQueueDepth();
+
+    int getSpilledUploads();
+
+    int getSpooledFiles();
+
+    long getSpooledBytes();
+
+    int getUploadConcurrencyLimit();
+
+    int getInFlightUploads();
+
+    long getUploadsQueued();
+
+    long getUploadsCompleted();
+
+    long getUploadRetries();
+
+    long getUploadFailures();
+
+    long getUploadsDropped();
+
+    long getEventsDropped();
+
+    long getBytesUploaded();
+
+    double getBytesPerSecond();
+
+    long getThrottledMillis();
+
+    long getUploadLatencyP50();
+
+    long getUploadLatencyP95();
+
+    long getUploadLatencyP99();
+
+    long getUploadLatencyMax();
+
+    long getCompressionsCompleted();
+
+    long getCompressionLatencyP50();
+
+    long getCompressionLatencyP95();
+
+    long getCompressionLatencyP99();
+
+    long getCompressionLatencyMax();
+}
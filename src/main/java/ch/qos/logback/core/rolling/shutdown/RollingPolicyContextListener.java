@@ -1,27 +1,26 @@
 package ch.qos.logback.core.rolling.shutdown;
 
-import com.google.common.collect.Lists;
-
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
-import java.util.List;
 
 public class RollingPolicyContextListener implements ServletContextListener {
 
-    private static final List<RollingPolicyShutdownListener> listeners;
+    private static final ShutdownCoordinator coordinator;
 
     static {
-        listeners = Lists.newArrayList();
+        coordinator = new ShutdownCoordinator();
     }
 
     public static void registerShutdownListener(final RollingPolicyShutdownListener listener) {
-        if (!listeners.contains(listener)) {
-            listeners.add(listener);
-        }
+        registerShutdownListener(listener, ShutdownCoordinator.DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public static void registerShutdownListener(final RollingPolicyShutdownListener listener, final long timeoutMillis) {
+        coordinator.register(listener, timeoutMillis);
     }
 
     public static void deregisterShutdownListener(final RollingPolicyShutdownListener listener) {
-        listeners.remove(listener);
+        coordinator.deregister(listener);
     }
 
     @Override
@@ -30,8 +29,6 @@ public class RollingPolicyContextListener implements ServletContextListener {
 
     @Override
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
-        for (RollingPolicyShutdownListener listener : listeners) {
-            listener.doShutdown();
-        }
+        coordinator.drain();
     }
 }
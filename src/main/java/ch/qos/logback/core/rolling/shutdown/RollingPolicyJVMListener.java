@@ -1,15 +1,31 @@
 package ch.qos.logback.core.rolling.shutdown;
 
+// A single JVM shutdown hook for every policy using JVM_SHUTDOWN_HOOK, so they drain in parallel.
 public class RollingPolicyJVMListener implements Runnable {
 
-    private final RollingPolicyShutdownListener listener;
+    private static final ShutdownCoordinator coordinator;
+    private static boolean hookAdded;
 
-    public RollingPolicyJVMListener(final RollingPolicyShutdownListener listener) {
-        this.listener = listener;
+    static {
+        coordinator = new ShutdownCoordinator();
+        hookAdded = false;
+    }
+
+    public static synchronized void registerShutdownListener(final RollingPolicyShutdownListener listener,
+                                                             final long timeoutMillis) {
+        coordinator.register(listener, timeoutMillis);
+        if (!hookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new RollingPolicyJVMListener(), "s3-shutdown-hook"));
+            hookAdded = true;
+        }
+    }
+
+    public static void deregisterShutdownListener(final RollingPolicyShutdownListener listener) {
+        coordinator.deregister(listener);
     }
 
     @Override
     public void run() {
-        this.listener.doShutdown();
+        coordinator.drain();
     }
 }
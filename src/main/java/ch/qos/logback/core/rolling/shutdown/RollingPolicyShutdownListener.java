@@ -1,6 +1,15 @@
 package ch.qos.logback.core.rolling.shutdown;
 
+import java.util.Collections;
+import java.util.List;
+
 public interface RollingPolicyShutdownListener {
 
     void doShutdown();
+
+    // Shuts down by the given System.nanoTime() deadline and returns what could not be uploaded by then.
+    default List<String> doShutdown(long deadlineNanos) {
+        doShutdown();
+        return Collections.emptyList();
+    }
 }
@@ -0,0 +1,94 @@
+package ch.qos.logback.core.rolling.shutdown;
+
+import ch.qos.logback.core.rolling.executor.UploadThreads;
+import ch.qos.logback.core.spi.ContextAware;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Shuts all registered listeners down at the same time under one deadline, the lowest shutdownTimeout among
+// them, instead of one after the other. Whatever was not uploaded by then is reported on System.err.
+public class ShutdownCoordinator {
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    // Listeners stop waiting at the deadline; this is how long they get to hand back their report.
+    private static final long REPORT_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<RollingPolicyShutdownListener, Long> listeners;
+
+    public ShutdownCoordinator() {
+        this.listeners = new LinkedHashMap<>();
+    }
+
+    public synchronized void register(RollingPolicyShutdownListener listener, long timeoutMillis) {
+        this.listeners.put(listener, timeoutMillis);
+    }
+
+    public synchronized void deregister(RollingPolicyShutdownListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    public synchronized int size() {
+        return listeners.size();
+    }
+
+    public List<String> drain() {
+        Map<RollingPolicyShutdownListener, Long> draining;
+        synchronized (this) {
+            draining = new LinkedHashMap<>(this.listeners);
+            this.listeners.clear();
+        }
+        if (draining.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        long timeoutMillis = Collections.min(draining.values());
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        final AtomicInteger threads = new AtomicInteger();
+        Executor executor = task -> UploadThreads.newThread(task, "s3-shutdown-" + threads.incrementAndGet(), true)
+                .start();
+
+        Map<RollingPolicyShutdownListener, CompletableFuture<List<String>>> shutdowns = new LinkedHashMap<>();
+        for (RollingPolicyShutdownListener listener : draining.keySet()) {
+            shutdowns.put(listener, CompletableFuture.supplyAsync(() -> listener.doShutdown(deadline), executor));
+        }
+
+        List<String> unflushed = new ArrayList<>();
+        for (Map.Entry<RollingPolicyShutdownListener, CompletableFuture<List<String>>> shutdown : shutdowns.entrySet()) {
+            long remaining = Math.max(deadline - System.nanoTime(), 0) + REPORT_GRACE_NANOS;
+            try {
+                unflushed.addAll(shutdown.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                unflushed.add(shutdown.getKey() + " did not finish shutting down");
+            } catch (ExecutionException e) {
+                if (shutdown.getKey() instanceof ContextAware) {
+                    ((ContextAware) shutdown.getKey()).addError("Failed to shut down", e.getCause());
+                }
+                unflushed.add(shutdown.getKey() + " failed to shut down: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                unflushed.add(shutdown.getKey() + " was interrupted while shutting down");
+            }
+        }
+
+        if (!unflushed.isEmpty()) {
+            System.err.println("Shutdown timeout of " + timeoutMillis + " ms passed, " + unflushed.size()
+                    + " uploads were not flushed to S3:");
+            for (String item : unflushed) {
+                System.err.println("  " + item);
+            }
+        }
+        return unflushed;
+    }
+}
@@ -3,16 +3,21 @@ package ch.qos.logback.core.rolling.shutdown;
 public class ShutdownHookUtil {
 
     public static void registerShutdownHook(RollingPolicyShutdownListener listener, ShutdownHookType shutdownHookType) {
+        registerShutdownHook(listener, shutdownHookType, ShutdownCoordinator.DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public static void registerShutdownHook(RollingPolicyShutdownListener listener, ShutdownHookType shutdownHookType,
+                                            long timeoutMillis) {
         if (shutdownHookType == null) {
             shutdownHookType = ShutdownHookType.NONE;
         }
 
         switch (shutdownHookType) {
             case SERVLET_CONTEXT:
-                RollingPolicyContextListener.registerShutdownListener(listener);
+                RollingPolicyContextListener.registerShutdownListener(listener, timeoutMillis);
                 break;
             case JVM_SHUTDOWN_HOOK:
-                Runtime.getRuntime().addShutdownHook(new Thread(new RollingPolicyJVMListener(listener)));
+                RollingPolicyJVMListener.registerShutdownListener(listener, timeoutMillis);
                 break;
             case NONE:
             default:
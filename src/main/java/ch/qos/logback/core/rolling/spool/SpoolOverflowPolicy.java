@@ -0,0 +1,6 @@
+package ch.qos.logback.core.rolling.spool;
+
+public enum SpoolOverflowPolicy {
+
+    BLOCK, DROP_OLDEST
+}
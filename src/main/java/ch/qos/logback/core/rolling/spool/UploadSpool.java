@@ -0,0 +1,132 @@
+package ch.qos.logback.core.rolling.spool;
+
+import ch.qos.logback.core.spi.ContextAware;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// The rolled files waiting for a confirmed upload and the disk space they take. Once a new file would take the
+// total past maxBytes, add() either waits for uploads to release space (BLOCK) or deletes the oldest waiting
+// files (DROP_OLDEST). A file being uploaded or waiting to retry is never deleted, when only those are left
+// DROP_OLDEST waits too. A file larger than the budget on its own is always let in.
+public class UploadSpool {
+
+    private final long maxBytes;
+    private final SpoolOverflowPolicy overflowPolicy;
+    private final Consumer<String> dropListener;
+    private final Predicate<File> inUse;
+    private final ContextAware status;
+    private final ArrayDeque<Entry> entries;
+
+    private long bytes;
+    private boolean stopped;
+
+    public UploadSpool(long maxBytes, SpoolOverflowPolicy overflowPolicy, Consumer<String> dropListener,
+                       Predicate<File> inUse, ContextAware status) {
+        this.maxBytes = maxBytes;
+        this.overflowPolicy = overflowPolicy;
+        this.dropListener = dropListener;
+        this.inUse = inUse;
+        this.status = status;
+        this.entries = new ArrayDeque<>();
+        this.bytes = 0;
+        this.stopped = false;
+    }
+
+    public void add(File file, String key) throws InterruptedException {
+        long length = file.length();
+        synchronized (this) {
+            while (isOverBudget(length)) {
+                Entry oldest = this.overflowPolicy == SpoolOverflowPolicy.DROP_OLDEST ? oldestIdle() : null;
+                if (oldest != null) {
+                    drop(oldest);
+                } else {
+                    wait();
+                }
+            }
+            this.entries.addLast(new Entry(file, key, length));
+            this.bytes += length;
+        }
+    }
+
+    // Releases the oldest entry for this file. Returns false if the file was not spooled, for example after it was
+    // dropped. Rolled files whose name gets reused are spooled as snapshots, so a path is only ever one file.
+    public synchronized boolean release(File file) {
+        for (Iterator<Entry> it = this.entries.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.file.equals(file)) {
+                it.remove();
+                this.bytes -= entry.length;
+                notifyAll();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized boolean contains(File file) {
+        for (Entry entry : this.entries) {
+            if (entry.file.equals(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // No more waiting from now on, the final segments at shutdown must not be held back.
+    public synchronized void stop() {
+        this.stopped = true;
+        notifyAll();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int getFiles() {
+        return entries.size();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private boolean isOverBudget(long length) {
+        return this.maxBytes > 0 && !this.stopped && !this.entries.isEmpty() && this.bytes + length > this.maxBytes;
+    }
+
+    private Entry oldestIdle() {
+        for (Entry entry : this.entries) {
+            if (!this.inUse.test(entry.file)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void drop(Entry entry) {
+        this.entries.remove(entry);
+        this.bytes -= entry.length;
+        if (entry.file.exists() && !entry.file.delete()) {
+            this.status.addWarn("Could not delete " + entry.file + " to stay within the spool size");
+        }
+        this.status.addWarn("Dropped " + entry.file + " before its upload to " + entry.key
+                + " to stay within the spool size");
+        this.dropListener.accept(entry.key);
+    }
+
+    private static class Entry {
+        private final File file;
+        private final String key;
+        private final long length;
+
+        Entry(File file, String key, long length) {
+            this.file = file;
+            this.key = key;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ch.qos.logback.core.rolling.throttle;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+// Hands out at most CHUNK_SIZE bytes per read and only once the throttle let them through, so the HTTP client
+// sends at the throttled rate instead of in one burst. Mark and reset are passed on for SDK retries; bytes read
+// again are sent again and are paid for again.
+public class ThrottledInputStream extends FilterInputStream {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private final UploadThrottle throttle;
+
+    public ThrottledInputStream(InputStream in, UploadThrottle throttle) {
+        super(in);
+        this.throttle = throttle;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            throttle(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, Math.min(len, CHUNK_SIZE));
+        if (read > 0) {
+            throttle(read);
+        }
+        return read;
+    }
+
+    private void throttle(int bytes) throws IOException {
+        try {
+            this.throttle.acquire(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while throttling upload");
+        }
+    }
+}
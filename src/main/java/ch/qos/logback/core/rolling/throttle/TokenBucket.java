@@ -0,0 +1,51 @@
+package ch.qos.logback.core.rolling.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+// Refills at bytesPerSecond up to burstBytes. A caller may take more than is left and goes into debt; it then
+// sleeps until the debt is paid back, and callers after it queue up behind that debt, so concurrent uploads
+// share the rate fairly without a lock being held while sleeping.
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long bytesPerSecond;
+    private final long burstBytes;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(long bytesPerSecond, long burstBytes) {
+        this.bytesPerSecond = Math.max(bytesPerSecond, 1);
+        this.burstBytes = Math.max(burstBytes, 1);
+        this.tokens = this.burstBytes;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    // Takes the tokens and returns how many nanoseconds the caller has to wait before sending them.
+    public synchronized long reserve(long bytes) {
+        long now = System.nanoTime();
+        this.tokens = Math.min(this.burstBytes,
+                this.tokens + (double) (now - this.lastRefillNanos) * this.bytesPerSecond / NANOS_PER_SECOND);
+        this.lastRefillNanos = now;
+        this.tokens -= bytes;
+        return this.tokens >= 0 ? 0 : (long) (-this.tokens * NANOS_PER_SECOND / this.bytesPerSecond);
+    }
+
+    // Returns the nanoseconds spent waiting.
+    public long acquire(long bytes) throws InterruptedException {
+        long waitNanos = reserve(bytes);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public long getBurstBytes() {
+        return burstBytes;
+    }
+}
@@ -0,0 +1,86 @@
+package ch.qos.logback.core.rolling.throttle;
+
+import ch.qos.logback.core.rolling.metrics.UploadMetrics;
+
+import java.io.InputStream;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Limits the upload bandwidth of one AmazonS3Client, and of all of them together when a process-wide limit is
+// set. Bytes pass the client's own bucket first, then the process bucket.
+public class UploadThrottle {
+
+    private static final Map<Object, long[]> PROCESS_LIMITS = new IdentityHashMap<>();
+
+    private static volatile TokenBucket processBucket;
+
+    private final TokenBucket bucket;
+    private final UploadMetrics metrics;
+
+    public UploadThrottle(TokenBucket bucket, UploadMetrics metrics) {
+        this.bucket = bucket;
+        this.metrics = metrics;
+    }
+
+    // Every client may ask for a process-wide limit; the lowest one of the running clients applies.
+    public static void limitProcess(Object owner, long bytesPerSecond, long burstBytes) {
+        synchronized (PROCESS_LIMITS) {
+            PROCESS_LIMITS.put(owner, new long[]{bytesPerSecond, burstBytes});
+            updateProcessBucket();
+        }
+    }
+
+    public static void releaseProcessLimit(Object owner) {
+        synchronized (PROCESS_LIMITS) {
+            if (PROCESS_LIMITS.remove(owner) != null) {
+                updateProcessBucket();
+            }
+        }
+    }
+
+    private static void updateProcessBucket() {
+        long[] lowest = null;
+        for (long[] limit : PROCESS_LIMITS.values()) {
+            if (lowest == null || limit[0] < lowest[0]) {
+                lowest = limit;
+            }
+        }
+
+        TokenBucket current = processBucket;
+        if (lowest == null) {
+            processBucket = null;
+        } else if (current == null || current.getBytesPerSecond() != lowest[0] || current.getBurstBytes() != lowest[1]) {
+            processBucket = new TokenBucket(lowest[0], lowest[1]);
+        }
+    }
+
+    public static TokenBucket getProcessBucket() {
+        return processBucket;
+    }
+
+    public boolean isActive() {
+        return this.bucket != null || processBucket != null;
+    }
+
+    public void acquire(long bytes) throws InterruptedException {
+        long waitNanos = 0;
+        if (this.bucket != null) {
+            waitNanos += this.bucket.acquire(bytes);
+        }
+        TokenBucket process = processBucket;
+        if (process != null) {
+            waitNanos += process.acquire(bytes);
+        }
+        if (waitNanos > 0) {
+            this.metrics.uploadThrottled(waitNanos);
+        }
+    }
+
+    public InputStream wrap(InputStream in) {
+        return isActive() ? new ThrottledInputStream(in, this) : in;
+    }
+
+    public TokenBucket getBucket() {
+        return bucket;
+    }
+}
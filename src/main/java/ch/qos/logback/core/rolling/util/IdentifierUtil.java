@@ -9,16 +9,34 @@ import java.net.InetAddress;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class IdentifierUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(IdentifierUtil.class);
-    private static String identifier;
+    private static final int METADATA_TIMEOUT_MILLIS = 500;
+
+    private static CompletableFuture<String> identifier;
+    private static CompletableFuture<String> localHostName;
 
     public static String getIdentifier() {
+        return getIdentifierAsync().join();
+    }
+
+    // Resolved once per JVM on a daemon thread, so start-up does not wait for the EC2 metadata service.
+    public static synchronized CompletableFuture<String> getIdentifierAsync() {
         if (identifier == null) {
-            identifier = getContentOfWebpage("http://169.254.169.254/latest/meta-data/instance-id");
+            final CompletableFuture<String> future = new CompletableFuture<>();
+            Thread resolver = new Thread(() -> future.complete(resolveIdentifier()), "s3-identifier-resolver");
+            resolver.setDaemon(true);
+            resolver.start();
+            identifier = future;
         }
+        return identifier;
+    }
+
+    private static String resolveIdentifier() {
+        String identifier = getContentOfWebpage("http://169.254.169.254/latest/meta-data/instance-id");
 
         if (identifier == null) {
             identifier = getHostname();
@@ -35,7 +53,8 @@ public class IdentifierUtil {
         try {
             URL url = new URL(location);
             URLConnection con = url.openConnection();
-            con.setConnectTimeout(500);
+            con.setConnectTimeout(METADATA_TIMEOUT_MILLIS);
+            con.setReadTimeout(METADATA_TIMEOUT_MILLIS);
             InputStream in = con.getInputStream();
             String encoding = con.getContentEncoding();
             encoding = encoding == null ? "UTF-8" : encoding;
@@ -71,4 +90,25 @@ public class IdentifierUtil {
         }
         return null;
     }
+
+    // Resolved once per JVM on a daemon thread, so start-up does not wait for a slow DNS lookup.
+    public static synchronized CompletableFuture<String> getLocalHostNameAsync() {
+        if (localHostName == null) {
+            final CompletableFuture<String> future = new CompletableFuture<>();
+            Thread resolver = new Thread(() -> future.complete(getLocalHostName()), "s3-host-name-resolver");
+            resolver.setDaemon(true);
+            resolver.start();
+            localHostName = future;
+        }
+        return localHostName;
+    }
+
+    public static String getLocalHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+        }
+        return getHostname();
+    }
 }
@@ -0,0 +1,28 @@
+package ch.qos.logback.core.rolling.executor;
+
+// The Java 21 version of UploadThreads, picked from META-INF/versions/21 of the multi-release jar. A client that
+// asks for virtual threads gets its own worker pool and part threads on them, so its upload workers park cheaply
+// while S3 answers; other clients in the JVM keep their platform threads.
+public final class UploadThreads {
+
+    private UploadThreads() {
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        return true;
+    }
+
+    public static Thread newThread(Runnable task, String name, boolean daemon) {
+        return newThread(task, name, daemon, false);
+    }
+
+    // Virtual threads are always daemon threads, whatever daemon says.
+    public static Thread newThread(Runnable task, String name, boolean daemon, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name).unstarted(task);
+        }
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(daemon);
+        return thread;
+    }
+}
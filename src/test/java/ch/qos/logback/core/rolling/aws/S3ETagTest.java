@@ -0,0 +1,82 @@
+package ch.qos.logback.core.rolling.aws;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class S3ETagTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = File.createTempFile("etag", ".log");
+        Files.write(this.file.toPath(), CONTENT);
+    }
+
+    @After
+    public void tearDown() {
+        this.file.delete();
+    }
+
+    @Test
+    public void singlePartETagIsTheMd5OfTheFile() throws Exception {
+        String eTag = "\"" + hex(md5(CONTENT)) + "\"";
+
+        assertEquals(S3ETag.Match.MATCH, S3ETag.check(eTag, this.file, 4));
+        assertEquals(S3ETag.Match.MATCH, S3ETag.check(eTag.toUpperCase(), this.file, 4));
+    }
+
+    @Test
+    public void singlePartETagOfOtherContentIsAMismatch() throws Exception {
+        String eTag = hex(md5("9876543210".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(S3ETag.Match.MISMATCH, S3ETag.check(eTag, this.file, 4));
+    }
+
+    @Test
+    public void multipartETagIsTheMd5OfThePartMd5s() throws Exception {
+        MessageDigest parts = MessageDigest.getInstance("MD5");
+        parts.update(md5(Arrays.copyOfRange(CONTENT, 0, 4)));
+        parts.update(md5(Arrays.copyOfRange(CONTENT, 4, 8)));
+        parts.update(md5(Arrays.copyOfRange(CONTENT, 8, 10)));
+        String eTag = hex(parts.digest()) + "-3";
+
+        assertEquals(S3ETag.Match.MATCH, S3ETag.check(eTag, this.file, 4));
+        assertEquals(S3ETag.Match.MISMATCH, S3ETag.check(hex(md5(CONTENT)) + "-3", this.file, 4));
+    }
+
+    @Test
+    public void etagsThatCannotBeCheckedAreUnknown() throws Exception {
+        assertEquals(S3ETag.Match.UNKNOWN, S3ETag.check(null, this.file, 4));
+        // SSE-KMS ETags are not an MD5.
+        assertEquals(S3ETag.Match.UNKNOWN, S3ETag.check("\"abc123\"", this.file, 4));
+        // A part count that does not fit the part size.
+        assertEquals(S3ETag.Match.UNKNOWN, S3ETag.check(hex(md5(CONTENT)) + "-2", this.file, 4));
+        assertEquals(S3ETag.Match.UNKNOWN, S3ETag.check(hex(md5(CONTENT)) + "-x", this.file, 4));
+        assertEquals(S3ETag.Match.UNKNOWN, S3ETag.check(hex(md5(CONTENT)) + "-1", this.file, 0));
+    }
+
+    private static byte[] md5(byte[] bytes) throws Exception {
+        return MessageDigest.getInstance("MD5").digest(bytes);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
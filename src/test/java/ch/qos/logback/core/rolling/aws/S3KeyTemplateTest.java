@@ -0,0 +1,64 @@
+package ch.qos.logback.core.rolling.aws;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class S3KeyTemplateTest {
+
+    private static final Date DATE = new Date(1_600_000_000_000L);
+
+    @Test
+    public void withoutFolderTheKeyIsTheFileName() {
+        S3KeyTemplate template = S3KeyTemplate.compile(null, false, false);
+
+        assertEquals("app.log.gz", template.build("/var/log/app/app.log.gz", DATE, false));
+        assertEquals("app.log.gz", template.build("C:\\logs\\app.log.gz", DATE, false));
+    }
+
+    @Test
+    public void datesUseSimpleDateFormatPatterns() {
+        S3KeyTemplate template = S3KeyTemplate.compile("logs/%d{yyyy/MM/dd}/%d{HH}", false, false);
+
+        String expected = "logs/" + new SimpleDateFormat("yyyy/MM/dd").format(DATE) + "/"
+                + new SimpleDateFormat("HH").format(DATE) + "/app.log";
+        assertEquals(expected, template.build("app.log", DATE, false));
+    }
+
+    @Test
+    public void bracedTokensAreReplaced() {
+        S3KeyTemplate template = S3KeyTemplate.compile("logs/%{pid}-%{seq}", false, false);
+        long pid = ProcessHandle.current().pid();
+
+        assertEquals("logs/" + pid + "-0/app.log", template.build("app.log", DATE, false));
+        assertEquals("logs/" + pid + "-1/app.log", template.build("app.log", DATE, false));
+    }
+
+    @Test
+    public void unknownTokensAndLonePercentsStayAsTheyAre() {
+        S3KeyTemplate template = S3KeyTemplate.compile("100%pid/%%x/%{unknown}/%d/%", false, false);
+
+        assertEquals("100%pid/%%x/%{unknown}/%d/%/app.log", template.build("app.log", DATE, false));
+    }
+
+    @Test
+    public void timestampPrefixIsAddedWhenEnabledOrOverridden() {
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneId.systemDefault())
+                .format(DATE.toInstant());
+
+        assertEquals("logs/" + timestamp + "_app.log",
+                S3KeyTemplate.compile("logs", true, false).build("app.log", DATE, false));
+        assertEquals("logs/" + timestamp + "_app.log",
+                S3KeyTemplate.compile("logs", false, false).build("app.log", DATE, true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidDatePatternFailsTheCompile() {
+        S3KeyTemplate.compile("logs/%d{yyyy-qq}", false, false);
+    }
+}
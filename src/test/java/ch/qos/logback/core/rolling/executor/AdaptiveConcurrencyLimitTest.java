@@ -0,0 +1,93 @@
+package ch.qos.logback.core.rolling.executor;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long BYTES = 1024 * 1024;
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void limitsAreClamped() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 0, 8);
+        assertEquals(1, limit.getMinLimit());
+        assertEquals(8, limit.getMaxLimit());
+        assertEquals(8, limit.getLimit());
+
+        limit = new AdaptiveConcurrencyLimit(0, 4, 2);
+        assertEquals(4, limit.getMaxLimit());
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void busyLaneGrowsUpToTheMax() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 6);
+
+        // About one more upload per round of uploads.
+        for (int i = 0; i < 5; i++) {
+            limit.onSuccess(BYTES, LATENCY, limit.getLimit());
+        }
+        assertEquals(5, limit.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSuccess(BYTES, LATENCY, limit.getLimit());
+        }
+        assertEquals(6, limit.getLimit());
+        assertEquals(0, limit.getBackoffs());
+    }
+
+    @Test
+    public void idleLaneDoesNotGrow() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 32);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSuccess(BYTES, LATENCY, 1);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void throttlingHalvesTheLimitDownToTheMin() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 3, 32);
+
+        limit.onThrottled();
+        assertEquals(4, limit.getLimit());
+        limit.onThrottled();
+        assertEquals(3, limit.getLimit());
+        assertEquals(2, limit.getBackoffs());
+    }
+
+    @Test
+    public void throttlingCountsOncePerRound() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(16, 1, 32);
+
+        limit.onThrottled();
+        assertEquals(8, limit.getLimit());
+
+        // A round now takes an hour, the rest of the burst falls into it.
+        limit.onSuccess(BYTES, TimeUnit.HOURS.toNanos(1), 1);
+        limit.onThrottled();
+        limit.onThrottled();
+        assertEquals(8, limit.getLimit());
+        assertEquals(1, limit.getBackoffs());
+    }
+
+    @Test
+    public void risingLatencyShrinksTheLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(16, 1, 32);
+
+        limit.onSuccess(100 * BYTES, TimeUnit.MILLISECONDS.toNanos(1), 16);
+        for (int i = 0; i < 5; i++) {
+            // Past the one millisecond round, so every slow sample may back off.
+            Thread.sleep(5);
+            limit.onSuccess(BYTES, TimeUnit.MILLISECONDS.toNanos(1), 16);
+        }
+        assertTrue(limit.getLimit() < 16);
+        assertTrue(limit.getBackoffs() > 0);
+    }
+}
@@ -0,0 +1,80 @@
+package ch.qos.logback.core.rolling.executor;
+
+import ch.qos.logback.core.spi.ContextAwareBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SpillFileTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = new File(Files.createTempDirectory("spill").toFile(), "uploads/spill");
+    }
+
+    @After
+    public void tearDown() {
+        this.file.delete();
+        this.file.getParentFile().delete();
+        this.file.getParentFile().getParentFile().delete();
+    }
+
+    @Test
+    public void entriesAreTakenInArrivalOrder() throws IOException {
+        SpillFile spill = new SpillFile(this.file, new ContextAwareBase());
+        spill.open();
+        spill.append("a");
+        spill.append("b");
+        spill.append("c");
+
+        assertEquals(3, spill.size());
+        assertEquals("a", spill.peek());
+        assertEquals("a", spill.poll());
+        assertEquals("b", spill.poll());
+        assertEquals("c", spill.poll());
+        assertNull(spill.poll());
+        assertEquals(0, spill.size());
+        spill.close();
+
+        // Once empty the file shrinks back to its header.
+        assertEquals(8, this.file.length());
+    }
+
+    @Test
+    public void entriesTakenBeforeARestartAreNotReplayed() throws IOException {
+        SpillFile spill = new SpillFile(this.file, new ContextAwareBase());
+        spill.open();
+        spill.append("a");
+        spill.append("b");
+        spill.append("c");
+        spill.poll();
+        spill.close();
+
+        assertEquals(Arrays.asList("b", "c"), SpillFile.readEntries(this.file));
+
+        SpillFile reopened = new SpillFile(this.file, new ContextAwareBase());
+        reopened.open();
+        assertEquals(2, reopened.size());
+        assertEquals("b", reopened.poll());
+        reopened.append("d");
+        assertEquals("c", reopened.poll());
+        assertEquals("d", reopened.poll());
+        reopened.close();
+    }
+
+    @Test
+    public void readEntriesOfAMissingFileIsEmpty() throws IOException {
+        assertEquals(Collections.emptyList(), SpillFile.readEntries(this.file));
+    }
+}
@@ -0,0 +1,91 @@
+package ch.qos.logback.core.rolling.journal;
+
+import ch.qos.logback.core.spi.ContextAwareBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UploadJournalTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = new File(Files.createTempDirectory("journal").toFile(), "uploads/journal");
+    }
+
+    @After
+    public void tearDown() {
+        new File(this.file.getPath() + ".tmp").delete();
+        this.file.delete();
+        this.file.getParentFile().delete();
+        this.file.getParentFile().getParentFile().delete();
+    }
+
+    @Test
+    public void pendingEntriesSurviveARestart() throws IOException {
+        UploadJournal journal = new UploadJournal(this.file, new ContextAwareBase());
+        journal.open();
+        UploadJournal.Entry first = journal.append("logs/a.log.gz", "/var/log/a.log.gz", "GZIP");
+        UploadJournal.Entry second = journal.append("logs/b.log", "/var/log/b.log", null);
+        journal.close();
+
+        UploadJournal reopened = new UploadJournal(this.file, new ContextAwareBase());
+        reopened.open();
+        List<UploadJournal.Entry> pending = reopened.getPending();
+        reopened.close();
+
+        assertEquals(2, pending.size());
+        assertEquals(first.getId(), pending.get(0).getId());
+        assertEquals("logs/a.log.gz", pending.get(0).getKey());
+        assertEquals("/var/log/a.log.gz", pending.get(0).getPath());
+        assertEquals("GZIP", pending.get(0).getCompression());
+        assertEquals(second.getId(), pending.get(1).getId());
+        assertNull(pending.get(1).getCompression());
+    }
+
+    @Test
+    public void completedEntriesAreNotReplayed() throws IOException {
+        UploadJournal journal = new UploadJournal(this.file, new ContextAwareBase());
+        journal.open();
+        UploadJournal.Entry first = journal.append("logs/a.log", "/var/log/a.log", null);
+        UploadJournal.Entry second = journal.append("logs/b.log", "/var/log/b.log", null);
+        journal.complete(first.getId());
+        journal.close();
+
+        UploadJournal reopened = new UploadJournal(this.file, new ContextAwareBase());
+        reopened.open();
+        List<UploadJournal.Entry> pending = reopened.getPending();
+        reopened.complete(second.getId());
+        reopened.close();
+
+        assertEquals(1, pending.size());
+        assertEquals(second.getId(), pending.get(0).getId());
+        // With nothing pending the journal is truncated.
+        assertEquals(0, this.file.length());
+    }
+
+    @Test
+    public void entriesAppendedAfterCloseAreNotJournaled() throws IOException {
+        UploadJournal journal = new UploadJournal(this.file, new ContextAwareBase());
+        journal.open();
+        journal.close();
+
+        UploadJournal.Entry entry = journal.append("logs/a.log", "/var/log/a.log", null);
+        journal.complete(entry.getId());
+
+        assertNotNull(entry.getId());
+        assertTrue(journal.getPending().isEmpty());
+        assertEquals(0, this.file.length());
+    }
+}
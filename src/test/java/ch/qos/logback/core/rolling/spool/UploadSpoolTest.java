@@ -0,0 +1,140 @@
+package ch.qos.logback.core.rolling.spool;
+
+import ch.qos.logback.core.spi.ContextAwareBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UploadSpoolTest {
+
+    private File directory;
+    private List<String> dropped;
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("spool").toFile();
+        this.dropped = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = this.directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        this.directory.delete();
+    }
+
+    @Test
+    public void releasedFilesFreeTheirSpace() throws Exception {
+        UploadSpool spool = new UploadSpool(100, SpoolOverflowPolicy.BLOCK, this.dropped::add, f -> false,
+                new ContextAwareBase());
+        File a = file("a", 30);
+        File b = file("b", 40);
+        spool.add(a, "logs/a");
+        spool.add(b, "logs/b");
+
+        assertEquals(70, spool.getBytes());
+        assertEquals(2, spool.getFiles());
+        assertTrue(spool.release(a));
+        assertFalse(spool.release(a));
+        assertEquals(40, spool.getBytes());
+        assertFalse(spool.contains(a));
+        assertTrue(spool.contains(b));
+    }
+
+    @Test
+    public void dropOldestDeletesTheOldestIdleFile() throws Exception {
+        File a = file("a", 40);
+        File b = file("b", 40);
+        File c = file("c", 40);
+        UploadSpool spool = new UploadSpool(100, SpoolOverflowPolicy.DROP_OLDEST, this.dropped::add,
+                f -> f.equals(a), new ContextAwareBase());
+        spool.add(a, "logs/a");
+        spool.add(b, "logs/b");
+        spool.add(c, "logs/c");
+
+        // a is being uploaded, so b goes instead.
+        assertEquals(Collections.singletonList("logs/b"), this.dropped);
+        assertFalse(b.exists());
+        assertTrue(a.exists());
+        assertEquals(80, spool.getBytes());
+        assertFalse(spool.release(b));
+    }
+
+    @Test
+    public void blockWaitsForARelease() throws Exception {
+        UploadSpool spool = new UploadSpool(100, SpoolOverflowPolicy.BLOCK, this.dropped::add, f -> false,
+                new ContextAwareBase());
+        File a = file("a", 60);
+        File b = file("b", 60);
+        spool.add(a, "logs/a");
+
+        CountDownLatch added = addInBackground(spool, b);
+        assertFalse(added.await(200, TimeUnit.MILLISECONDS));
+
+        spool.release(a);
+        assertTrue(added.await(5, TimeUnit.SECONDS));
+        assertEquals(60, spool.getBytes());
+        assertTrue(this.dropped.isEmpty());
+    }
+
+    @Test
+    public void stopLetsWaitingFilesIn() throws Exception {
+        UploadSpool spool = new UploadSpool(100, SpoolOverflowPolicy.BLOCK, this.dropped::add, f -> false,
+                new ContextAwareBase());
+        spool.add(file("a", 60), "logs/a");
+
+        CountDownLatch added = addInBackground(spool, file("b", 60));
+        assertFalse(added.await(200, TimeUnit.MILLISECONDS));
+
+        spool.stop();
+        assertTrue(added.await(5, TimeUnit.SECONDS));
+        assertEquals(120, spool.getBytes());
+    }
+
+    @Test
+    public void fileLargerThanTheBudgetIsLetIn() throws Exception {
+        UploadSpool spool = new UploadSpool(100, SpoolOverflowPolicy.BLOCK, this.dropped::add, f -> false,
+                new ContextAwareBase());
+        spool.add(file("a", 150), "logs/a");
+
+        assertEquals(150, spool.getBytes());
+    }
+
+    private File file(String name, int length) throws IOException {
+        File file = new File(this.directory, name);
+        Files.write(file.toPath(), new byte[length]);
+        return file;
+    }
+
+    private static CountDownLatch addInBackground(final UploadSpool spool, final File file) {
+        final CountDownLatch added = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                spool.add(file, "logs/" + file.getName());
+                added.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return added;
+    }
+}